@@ -0,0 +1,37 @@
+package com.example.rental_backend.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Configuration class for the binary encodings offered next to JSON: CBOR (`application/cbor`)
+ * and Smile (`application/x-jackson-smile`). Clients opt in through the `Accept` header
+ * (and `Content-Type` for request bodies); JSON stays the default.
+ *
+ * The converters are built from the application's Jackson builder, so binary payloads carry
+ * the same property names and date handling as JSON ones. They take the place of Spring's
+ * default CBOR/Smile converters, after the JSON converter.
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+    /**
+     * Media type of Smile payloads.
+     */
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
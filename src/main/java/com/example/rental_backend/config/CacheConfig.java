@@ -0,0 +1,20 @@
+package com.example.rental_backend.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class enabling Spring's cache abstraction.
+ * The caches themselves are Caffeine caches declared in `application.properties`
+ * (`spring.cache.cache-names` and `spring.cache.caffeine.spec`), and their hit, miss
+ * and eviction counters are published through the actuator metrics endpoint.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Name of the cache holding RentalDTOs by rental ID.
+     */
+    public static final String RENTALS_CACHE = "rentals";
+}
@@ -2,14 +2,17 @@ package com.example.rental_backend.config;
 
 import com.cloudinary.*;
 import io.github.cdimascio.dotenv.Dotenv;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
  * Configuration class for integrating the Cloudinary service with the application.
  * This class defines a Spring Bean for Cloudinary, configured via environment variables.
+ * Skipped when another image storage is selected with `app.storage.type`.
  */
 @Configuration
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "cloudinary", matchIfMissing = true)
 public class CloudinaryConfig {
 
     /**
@@ -0,0 +1,103 @@
+package com.example.rental_backend.config;
+
+import com.example.rental_backend.storage.Signatures;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration class splitting database traffic between the primary and its read replicas.
+ *
+ * - The primary is configured by the usual `spring.datasource.*` and `spring.datasource.hikari.*` properties.
+ * - Replicas are listed under `app.datasource.replicas[n].url` (plus optional username, password, maximum-pool-size).
+ * - `@Transactional(readOnly = true)` work goes to the replicas, everything else to the primary.
+ * - With no replica configured, all traffic goes to the primary as before.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+public class DataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    /**
+     * Creates the connection pool of the primary database.
+     *
+     * @param properties the `spring.datasource.*` properties
+     * @return the primary pool
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Creates the DataSource routing each transaction to the primary or a replica.
+     * It owns the replica pools and closes them on shutdown.
+     *
+     * @param primary           the primary pool
+     * @param primaryProperties the primary's settings, providing the replicas' default credentials
+     * @param routing           the replicas and read-your-writes settings
+     * @return the routing DataSource
+     */
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                                        DataSourceProperties primaryProperties,
+                                                        DataSourceRoutingProperties routing) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < routing.getReplicas().size(); i++) {
+            replicas.add(replicaDataSource(routing.getReplicas().get(i), primaryProperties, i));
+        }
+        byte[] key;
+        if (routing.getReadYourWritesKey().isEmpty()) {
+            logger.warn("app.datasource.read-your-writes-key is not set: consistency tokens are only honoured by this instance, until it restarts");
+            key = Signatures.randomKey();
+        } else {
+            key = routing.getReadYourWritesKey().getBytes(StandardCharsets.UTF_8);
+        }
+        ReadYourWrites readYourWrites = new ReadYourWrites(routing.getReadYourWritesWindow(), key, Clock.systemUTC());
+        return new ReadWriteRoutingDataSource(primary, replicas, readYourWrites);
+    }
+
+    /**
+     * Creates the DataSource used by JPA. The proxy defers picking the target until the first statement,
+     * once the transaction's read-only flag is known.
+     *
+     * @param routingDataSource the routing DataSource
+     * @return the lazy proxy over the routing DataSource
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    private static HikariDataSource replicaDataSource(DataSourceRoutingProperties.Replica replica,
+                                                      DataSourceProperties primaryProperties, int index) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(ReadWriteRoutingDataSource.REPLICA_PREFIX + index);
+        dataSource.setJdbcUrl(replica.getUrl());
+        dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : primaryProperties.determineUsername());
+        dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : primaryProperties.determinePassword());
+        dataSource.setDriverClassName(primaryProperties.determineDriverClassName());
+        dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.rental_backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings of the read replicas, bound from the `app.datasource.*` properties.
+ * The primary database keeps its usual `spring.datasource.*` settings.
+ */
+@ConfigurationProperties(prefix = "app.datasource")
+public class DataSourceRoutingProperties {
+
+    private List<Replica> replicas = new ArrayList<>(); // Replica pools serving read-only transactions
+
+    private Duration readYourWritesWindow = Duration.ofSeconds(5); // How long a client's reads stay on the primary after it writes
+
+    private String readYourWritesKey = ""; // Secret signing the consistency tokens, the same on every instance; random if empty
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<Replica> replicas) {
+        this.replicas = replicas;
+    }
+
+    public Duration getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    public String getReadYourWritesKey() {
+        return readYourWritesKey;
+    }
+
+    public void setReadYourWritesKey(String readYourWritesKey) {
+        this.readYourWritesKey = readYourWritesKey;
+    }
+
+    /**
+     * Connection settings of one replica. The username and password default to the primary's.
+     */
+    public static class Replica {
+
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+    }
+}
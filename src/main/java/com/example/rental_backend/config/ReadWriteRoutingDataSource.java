@@ -0,0 +1,84 @@
+package com.example.rental_backend.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource sending read-only transactions to the replicas, round robin, and everything else to the primary.
+ *
+ * The routing decision reads the transaction's read-only flag, which Spring only sets once the
+ * transaction has begun, so this DataSource must be wrapped in a LazyConnectionDataSourceProxy.
+ * Reads of a client that has just written are kept on the primary by {@link ReadYourWrites}.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA_PREFIX = "replica-";
+
+    private final List<DataSource> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Constructor for ReadWriteRoutingDataSource.
+     *
+     * @param primary        the primary database, receiving writes and pinned reads
+     * @param replicas       the replicas serving read-only transactions; may be empty
+     * @param readYourWrites the guard pinning reads to the primary after a write
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, ReadYourWrites readYourWrites) {
+        this.replicas = List.copyOf(replicas);
+        this.readYourWrites = readYourWrites;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(REPLICA_PREFIX + i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        if (inTransaction && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (replicas.isEmpty() || readYourWrites.isPinnedToPrimary()) {
+                return PRIMARY;
+            }
+            return REPLICA_PREFIX + Math.floorMod(next.getAndIncrement(), replicas.size());
+        }
+        if (inTransaction && TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A read-write transaction: once it commits, the client must read its own writes
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    readYourWrites.recordWrite();
+                }
+            });
+        }
+        return PRIMARY;
+    }
+
+    /**
+     * Closes the replica pools, which are owned by this DataSource. The primary is closed by its own bean.
+     *
+     * @throws Exception if a pool fails to close
+     */
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.rental_backend.config;
+
+import com.example.rental_backend.storage.Signatures;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Read-your-writes guarantee on top of replica routing.
+ *
+ * When a request commits a write, the response carries an `X-Consistency-Token` holding the time
+ * until which the client's reads must see that write. Clients send the token back on their next
+ * requests, and those requests read from the primary until it expires, which covers the replicas'
+ * replication lag. The rest of the writing request is pinned to the primary as well.
+ *
+ * The token is signed with `app.datasource.read-your-writes-key`, so only a write earns one: a client
+ * cannot make up tokens to keep its reads on the primary, and a token replayed is honoured no longer
+ * than one window after the write that earned it.
+ */
+public class ReadYourWrites {
+
+    /**
+     * Header carrying the consistency token, in responses to writes and in later requests.
+     */
+    public static final String HEADER = "X-Consistency-Token";
+
+    private static final String PINNED_ATTRIBUTE = ReadYourWrites.class.getName() + ".PINNED";
+
+    private final Duration window;
+    private final byte[] key;
+    private final Clock clock;
+
+    /**
+     * Constructor for ReadYourWrites.
+     *
+     * @param window how long reads stay on the primary after a write; should exceed the replication lag
+     * @param key    the secret signing the tokens, the same on every instance
+     * @param clock  the clock used to issue and check tokens
+     */
+    public ReadYourWrites(Duration window, byte[] key, Clock clock) {
+        this.window = window;
+        this.key = key;
+        this.clock = clock;
+    }
+
+    /**
+     * Tells whether the current request must read from the primary: it wrote already,
+     * or it carries a consistency token that has not expired yet.
+     *
+     * @return true to route the current read to the primary
+     */
+    public boolean isPinnedToPrimary() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            return false;
+        }
+        Object pinned = attributes.getAttribute(PINNED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (pinned == null) {
+            // Check the token once per request
+            pinned = isValid(attributes.getRequest().getHeader(HEADER));
+            attributes.setAttribute(PINNED_ATTRIBUTE, pinned, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Boolean) pinned;
+    }
+
+    /**
+     * Records that the current request committed a write: pins its remaining reads to the primary
+     * and hands a fresh consistency token to the client.
+     */
+    public void recordWrite() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            return;
+        }
+        attributes.setAttribute(PINNED_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            String until = Long.toString(clock.millis() + window.toMillis());
+            response.setHeader(HEADER, until + "." + sign(until));
+        }
+    }
+
+    private boolean isValid(String token) {
+        int dot = token == null ? -1 : token.indexOf('.');
+        if (dot < 0) {
+            return false;
+        }
+        String until = token.substring(0, dot).trim();
+        if (!Signatures.matches(sign(until), token.substring(dot + 1).trim())) {
+            return false;
+        }
+        try {
+            long expiry = Long.parseLong(until);
+            long now = clock.millis();
+            // Also bounded by the window in force, should it have been shortened since the token was issued
+            return expiry > now && expiry <= now + window.toMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private String sign(String until) {
+        return Signatures.sign(key, "read-your-writes\n" + until);
+    }
+
+    private static ServletRequestAttributes currentRequest() {
+        // Null outside HTTP requests, e.g. at startup or on background threads
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes ? attributes : null;
+    }
+}
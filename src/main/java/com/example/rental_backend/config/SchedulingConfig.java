@@ -0,0 +1,13 @@
+package com.example.rental_backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class enabling Spring's scheduled tasks, such as the sweep of expired resumable uploads.
+ * They run on the single thread of Spring Boot's default task scheduler, so each task must stay short.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,9 +1,15 @@
 package com.example.rental_backend.config;
 
+import java.util.List;
 import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -30,14 +36,18 @@ import io.github.cdimascio.dotenv.Dotenv;
 public class SecurityConfig {
     private final CustomUserDetailsService customUserDetailsService;
     private final String jwtKey;
+    private final List<String> admins;
 
     /**
      * Constructor for dependency injection of the custom user details service and loading environment variables.
      *
      * @param customUserDetailsService the service for loading user-specific data
+     * @param admins                   the emails of the users allowed on the actuator endpoints other than health
      */
-    public SecurityConfig(CustomUserDetailsService customUserDetailsService) {
+    public SecurityConfig(CustomUserDetailsService customUserDetailsService,
+                          @Value("${app.security.admins:}") List<String> admins) {
         this.customUserDetailsService = customUserDetailsService;
+        this.admins = admins;
 
         // Load the JWT secret key from environment variables using Dotenv
         Dotenv dotenv = Dotenv.load();
@@ -54,7 +64,8 @@ public class SecurityConfig {
      *
      * - Disables CSRF (since this is a stateless application using JWTs).
      * - Configures session management as stateless.
-     * - Allows public access to registration and login endpoints.
+     * - Allows public access to registration and login endpoints, to the stored pictures and to the health check.
+     * - Restricts the other actuator endpoints (metrics, caches) to the users listed in app.security.admins.
      * - Protects all other endpoints with authentication.
      * - Enables JWT-based OAuth2 resource server.
      *
@@ -74,6 +85,11 @@ public class SecurityConfig {
                     "/api-docs/**",    // Endpoints OpenAPI
                     "/swagger-ui/**",     // Swagger UI static files
                     "/swagger-ui.html").permitAll() // Public endpoints
+                .requestMatchers(HttpMethod.GET, "/api/images/**").permitAll() // Pictures of the local image storage
+                .requestMatchers(HttpMethod.PUT, "/api/images/**").permitAll() // Direct uploads, authenticated by their presigned URL
+                .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll() // Probes of load balancers and orchestrators
+                .requestMatchers(EndpointRequest.toAnyEndpoint()).access((authentication, context) ->
+                    new AuthorizationDecision(admins.contains(authentication.get().getName()))) // Operators only
                 .anyRequest().authenticated() // All other endpoints require authentication
             ).oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults())) // Enable JWT-based OAuth2 resource server
             .build();
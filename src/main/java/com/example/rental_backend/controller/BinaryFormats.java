@@ -0,0 +1,70 @@
+package com.example.rental_backend.controller;
+
+import com.example.rental_backend.config.BinaryFormatsConfig;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Helpers for negotiating the binary encodings (CBOR, Smile) offered next to JSON.
+ */
+final class BinaryFormats {
+
+    static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+    static final MediaType SMILE = MediaType.parseMediaType(BinaryFormatsConfig.SMILE_VALUE);
+
+    private BinaryFormats() {
+    }
+
+    /**
+     * Finds the binary encoding preferred by the client's Accept header, if any.
+     * JSON wins whenever the client accepts it with at least the same quality.
+     *
+     * @param webRequest the current request
+     * @return CBOR or SMILE, or null when the response should be JSON
+     */
+    static MediaType preferred(WebRequest webRequest) {
+        String accept = webRequest.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return null;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        // Stable sort: equal qualities keep the client's order
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                break;
+            }
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                return null;
+            }
+            if (mediaType.isCompatibleWith(CBOR)) {
+                return CBOR;
+            }
+            if (mediaType.isCompatibleWith(SMILE)) {
+                return SMILE;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the subtype of a negotiated encoding, so each encoding of a resource gets its own ETag.
+     *
+     * @param format the negotiated binary encoding, or null for JSON
+     * @return the subtype, or null for JSON
+     */
+    static String tag(MediaType format) {
+        return format == null ? null : format.getSubtype();
+    }
+}
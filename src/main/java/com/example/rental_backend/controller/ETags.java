@@ -0,0 +1,75 @@
+package com.example.rental_backend.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+
+/**
+ * Helpers for building the validators used by conditional GET requests
+ * (ETag / If-None-Match and Last-Modified / If-Modified-Since).
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Builds a strong ETag from the given parts, e.g. the ID and update timestamp of a resource.
+     *
+     * @param parts the values identifying one version of a representation
+     * @return the quoted ETag value
+     */
+    static String of(Object... parts) {
+        return "\"" + join(parts) + "\"";
+    }
+
+    /**
+     * Builds a strong ETag from a digest of the given parts, for representations identified by many
+     * values, e.g. the ID and version of every rental of a page, or by their content (byte arrays).
+     *
+     * @param parts the values identifying one version of a representation
+     * @return the quoted ETag value
+     */
+    static String digest(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                digest.update(part instanceof byte[] bytes ? bytes : join(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            byte[] hash = digest.digest();
+            // 128 bits are plenty to tell the versions of one resource apart
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Converts an update timestamp to the epoch milliseconds expected by Last-Modified.
+     *
+     * @param timestamp the update timestamp, may be null
+     * @return the epoch milliseconds, or -1 if the timestamp is unknown
+     */
+    static long epochMillis(LocalDateTime timestamp) {
+        return timestamp == null ? -1 : timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Joins the parts of a validator, timestamps as epoch milliseconds.
+     */
+    private static String join(Object... parts) {
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                joined.append('-');
+            }
+            Object part = parts[i];
+            joined.append(part instanceof LocalDateTime timestamp ? epochMillis(timestamp) : part == null ? "" : part);
+        }
+        return joined.toString();
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.rental_backend.controller;
+
+import com.example.rental_backend.dto.ResponseMessageDTO;
+import com.example.rental_backend.storage.LocalImageStorage;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Controller serving the pictures kept by the local image storage, and receiving the pictures
+ * uploaded straight to it through presigned URLs.
+ *
+ * A stored picture never changes, so responses are cacheable for a year and validated by their key.
+ * Single byte ranges are honored. The file is handed to the container's sendfile support when it
+ * has one (Tomcat's NIO connector), otherwise copied with FileChannel.transferTo.
+ */
+@RestController
+@RequestMapping("/api/images")
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+public class ImageController {
+
+    // Tomcat request attributes asking the connector to send a file region itself
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private final LocalImageStorage imageStorage;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param imageStorage the storage holding the pictures
+     */
+    public ImageController(LocalImageStorage imageStorage) {
+        this.imageStorage = imageStorage;
+    }
+
+    /**
+     * Endpoint to download a stored picture, or a byte range of it.
+     *
+     * @param key      the key of the picture
+     * @param request  the current request, read for the Range, If-Range and If-None-Match headers
+     * @param response the response the picture is written to
+     * @throws IOException if the picture cannot be read or sent
+     */
+    @Operation(summary = "Download a picture", description = "Serves a picture of the local image storage. Supports a single \"Range\" and conditional requests; responses may be cached for a year.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "The picture"),
+        @ApiResponse(responseCode = "206", description = "The requested range of the picture"),
+        @ApiResponse(responseCode = "304", description = "The picture held by the client is current"),
+        @ApiResponse(responseCode = "404", description = "Picture not found"),
+        @ApiResponse(responseCode = "416", description = "The range is outside of the picture")
+    })
+    @GetMapping("/{key}")
+    public void getImage(@PathVariable String key, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> found = imageStorage.find(key);
+        if (found.isEmpty()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        Path file = found.get();
+        String etag = "\"" + key + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file)) {
+            long length = channel.size();
+            long start = 0;
+            long end = length - 1;
+
+            // A Range is ignored if the client's copy is stale (If-Range), or if it lists several ranges
+            String range = request.getHeader(HttpHeaders.RANGE);
+            String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+            if (range != null && (ifRange == null || ifRange.equals(etag))) {
+                List<HttpRange> ranges;
+                try {
+                    ranges = HttpRange.parseRanges(range);
+                    if (ranges.size() == 1) {
+                        start = ranges.get(0).getRangeStart(length);
+                        end = ranges.get(0).getRangeEnd(length);
+                    }
+                } catch (IllegalArgumentException e) {
+                    ranges = List.of();
+                }
+                if (ranges.isEmpty() || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                if (ranges.size() == 1) {
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            }
+
+            long count = end - start + 1;
+            response.setContentType(MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+            response.setContentLengthLong(count);
+            if (count == 0 || "HEAD".equals(request.getMethod())) {
+                return;
+            }
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+                // The connector sends the region with sendfile once the request returns
+                request.setAttribute(SENDFILE_FILENAME, file.toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+                return;
+            }
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            for (long position = start; position <= end; ) {
+                position += channel.transferTo(position, end + 1 - position, out);
+            }
+        }
+    }
+
+    /**
+     * Endpoint receiving a picture sent to a presigned upload URL, the local stand-in for a cloud
+     * storage's direct uploads. The URL's signature authenticates the request.
+     *
+     * @param key       the key of the picture
+     * @param expires   the expiry of the URL, in seconds since the epoch
+     * @param signature the signature of the URL
+     * @param request   the current request, whose body is the picture
+     * @return a ResponseEntity locating the stored picture, or an error message
+     */
+    @Operation(summary = "Upload a picture to a presigned URL", description = "Stores the request body under the key of a URL issued by POST /api/pictures/direct-uploads. Then create the rental with the \"picture_ref\" it gave.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Picture stored; its URL is in the Location header"),
+        @ApiResponse(responseCode = "400", description = "The body is not a JPEG, PNG, GIF or WebP picture, or is too large"),
+        @ApiResponse(responseCode = "403", description = "The URL's signature is wrong or expired"),
+        @ApiResponse(responseCode = "409", description = "A picture was already uploaded to this URL")
+    })
+    @PutMapping("/{key}")
+    public ResponseEntity<ResponseMessageDTO> putImage(
+        @PathVariable String key,
+        @RequestParam long expires,
+        @RequestParam String signature,
+        HttpServletRequest request
+    ) {
+        try {
+            String url = imageStorage.receive(key, expires, signature, request.getInputStream());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .header(HttpHeaders.LOCATION, url)
+                .body(new ResponseMessageDTO("Picture uploaded"));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new ResponseMessageDTO(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ResponseMessageDTO(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ResponseMessageDTO(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(new ResponseMessageDTO("An internal error occurred"));
+        }
+    }
+
+    /**
+     * Tells whether an If-None-Match header matches an entity tag.
+     *
+     * @param ifNoneMatch the header value, or null
+     * @param etag        the entity tag
+     * @return true if one of the listed tags (or "*") matches
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -2,41 +2,51 @@ package com.example.rental_backend.controller;
 
 import com.example.rental_backend.dto.MessageDTO;
 import com.example.rental_backend.dto.ResponseMessageDTO;
-import com.example.rental_backend.service.MessageService;
+import com.example.rental_backend.service.MessageIngestor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Controller for handling message-related operations.
+ *
+ * Messages are stored in batches by the MessageIngestor; the request thread is released while a
+ * message waits for its batch, and the response is sent once the batch commits.
  */
 @RestController
 @RequestMapping("/api/messages")
 public class MessageController {
 
-    private final MessageService messageService;
+    private final MessageIngestor messageIngestor;
 
     /**
      * Constructor for dependency injection.
      *
-     * @param messageService the service handling message operations
+     * @param messageIngestor the ingestor storing the messages in batches
      */
-    public MessageController(MessageService messageService) {
-        this.messageService = messageService;
+    public MessageController(MessageIngestor messageIngestor) {
+        this.messageIngestor = messageIngestor;
     }
 
     /**
      * Endpoint to send a message.
      *
      * @param messageDTO the details of the message to be sent
-     * @return a ResponseEntity containing a success message or an error message
+     * @return a future completed with a ResponseEntity containing a success message or an error message,
+     *         once the message is stored
      */
-    @Operation(summary = "Send a message", description = "Allows a user to send a message related to a rental.")
+    @Operation(summary = "Send a message", description = "Allows a user to send a message related to a rental. The body may be sent as JSON, CBOR (application/cbor) or Smile (application/x-jackson-smile).")
     @ApiResponses(value = {
         @ApiResponse(
             responseCode = "200",
@@ -56,6 +66,15 @@ public class MessageController {
                 }
             """))
         ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Too many messages are waiting to be stored; retry after the delay in the Retry-After header.",
+            content = @Content(mediaType = "application/json", schema = @Schema(example = """
+                {
+                    "message": "Too many messages are waiting to be stored"
+                }
+            """))
+        ),
         @ApiResponse(
             responseCode = "500",
             description = "Internal server error.",
@@ -67,18 +86,33 @@ public class MessageController {
         )
     })
     @PostMapping
-    public ResponseEntity<ResponseMessageDTO> sendMessage(@RequestBody MessageDTO messageDTO) {
+    public CompletableFuture<ResponseEntity<ResponseMessageDTO>> sendMessage(@RequestBody MessageDTO messageDTO) {
         try {
-            messageService.sendMessage(
-                messageDTO.getMessage(),
-                messageDTO.getUserId(),
-                messageDTO.getRentalId()
-            );
-            return ResponseEntity.ok(new ResponseMessageDTO("Message send with success"));
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body(new ResponseMessageDTO(e.getMessage()));
+            return messageIngestor.submit(messageDTO)
+                .thenApply(stored -> ResponseEntity.ok(new ResponseMessageDTO("Message send with success")))
+                .exceptionally(MessageController::toErrorResponse);
         } catch (Exception e) {
-            return ResponseEntity.status(500).body(new ResponseMessageDTO("An internal error occurred"));
+            return CompletableFuture.completedFuture(toErrorResponse(e));
+        }
+    }
+
+    /**
+     * Maps a failure to send a message to its response.
+     *
+     * @param e the failure, possibly wrapped by the future
+     * @return a ResponseEntity containing the error message
+     */
+    private static ResponseEntity<ResponseMessageDTO> toErrorResponse(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof IllegalArgumentException) {
+            return ResponseEntity.badRequest().body(new ResponseMessageDTO(cause.getMessage()));
+        }
+        if (cause instanceof RejectedExecutionException) {
+            // The queue drains in milliseconds; a second is plenty
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ResponseMessageDTO(cause.getMessage()));
         }
+        return ResponseEntity.status(500).body(new ResponseMessageDTO("An internal error occurred"));
     }
 }
@@ -0,0 +1,126 @@
+package com.example.rental_backend.controller;
+
+import com.example.rental_backend.dto.DirectUploadDTO;
+import com.example.rental_backend.dto.PictureDTO;
+import com.example.rental_backend.dto.ResponseMessageDTO;
+import com.example.rental_backend.service.PictureIndex;
+import com.example.rental_backend.storage.ImageStorage;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller for looking up the pictures already stored, and for uploading pictures straight to the storage.
+ */
+@RestController
+@RequestMapping("/api/pictures")
+public class PictureController {
+
+    private final PictureIndex pictureIndex;
+    private final ImageStorage imageStorage;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param pictureIndex the index of the stored pictures
+     * @param imageStorage the storage issuing the direct uploads
+     */
+    public PictureController(PictureIndex pictureIndex, ImageStorage imageStorage) {
+        this.pictureIndex = pictureIndex;
+        this.imageStorage = imageStorage;
+    }
+
+    /**
+     * Endpoint to get the signed parameters of a direct upload, so the picture goes straight to the
+     * storage without passing through this server.
+     *
+     * @param authentication the authentication object containing user credentials
+     * @return a ResponseEntity containing the upload parameters, or an error message
+     */
+    @Operation(summary = "Prepare a direct upload", description = "Returns where and how to send a picture straight to the image storage: send it to \"url\" with \"method\" (for a POST, as the \"file\" field of a multipart form with the \"fields\"), before \"expires_at\". Then create the rental with \"pictureRef\" set to \"picture_ref\".")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Upload parameters issued.",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = DirectUploadDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error.",
+            content = @Content(mediaType = "application/json", schema = @Schema(example = """
+                {
+                    "message": "An internal error occurred"
+                }
+            """))
+        )
+    })
+    @PostMapping("/direct-uploads")
+    public ResponseEntity<?> prepareDirectUpload(Authentication authentication) {
+        try {
+            return ResponseEntity.ok(imageStorage.prepareDirectUpload(authentication.getName()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(new ResponseMessageDTO("An internal error occurred"));
+        }
+    }
+
+    /**
+     * Endpoint to check whether a picture is already stored, before uploading it.
+     *
+     * @param hash the hexadecimal SHA-256 of the picture's content
+     * @return a ResponseEntity containing the stored picture, or an error message
+     */
+    @Operation(summary = "Find a stored picture", description = "Looks up a picture by the SHA-256 of its content. If it is found, create the rental with \"pictureHash\" instead of uploading the picture again.")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "The picture is already stored.",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = PictureDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "The hash is not a hexadecimal SHA-256.",
+            content = @Content(mediaType = "application/json", schema = @Schema(example = """
+                {
+                    "message": "The picture hash must be a hexadecimal SHA-256"
+                }
+            """))
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "The picture is not stored yet.",
+            content = @Content(mediaType = "application/json", schema = @Schema(example = """
+                {
+                    "message": "Picture not found"
+                }
+            """))
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error.",
+            content = @Content(mediaType = "application/json", schema = @Schema(example = """
+                {
+                    "message": "An internal error occurred"
+                }
+            """))
+        )
+    })
+    @GetMapping("/{hash}")
+    public ResponseEntity<?> getPicture(@PathVariable String hash) {
+        try {
+            return pictureIndex.find(hash)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ResponseMessageDTO("Picture not found")));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ResponseMessageDTO(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(new ResponseMessageDTO("An internal error occurred"));
+        }
+    }
+}
@@ -1,50 +1,126 @@
 package com.example.rental_backend.controller;
 
+import com.example.rental_backend.config.BinaryFormatsConfig;
 import com.example.rental_backend.dto.RentalDTO;
+import com.example.rental_backend.dto.RentalImportProgressDTO;
+import com.example.rental_backend.dto.RentalPatchDTO;
 import com.example.rental_backend.dto.RentalsWrapperDTO;
 import com.example.rental_backend.dto.ResponseMessageDTO;
+import com.example.rental_backend.model.PictureStatus;
+import com.example.rental_backend.repository.FieldProjections;
+import com.example.rental_backend.repository.RentalField;
+import com.example.rental_backend.repository.RentalFilter;
+import com.example.rental_backend.repository.RentalSort;
+import com.example.rental_backend.service.RentalImportService;
+import com.example.rental_backend.service.RentalJsonCache;
+import com.example.rental_backend.service.RentalPictureUploader;
 import com.example.rental_backend.service.RentalService;
+import com.example.rental_backend.storage.StorageUnavailableException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityNotFoundException;
+
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.security.core.Authentication;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/rentals")
 public class RentalController {
 
+    // Media type of the newline-delimited JSON export
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
+    // Media type of CSV bulk imports
+    private static final String CSV_VALUE = "text/csv";
+
+    // How long a client may wait for a picture upload to end
+    private static final long PICTURE_WAIT_MILLIS = 60_000;
+
     private final RentalService rentalService;
+    private final RentalImportService rentalImportService;
+    private final RentalPictureUploader pictureUploader;
+    private final RentalJsonCache jsonCache;
+    private final ObjectMapper objectMapper;
 
     /**
      * Constructor injection for dependencies.
      * 
      * @param rentalService the service managing rental operations
-     * @param userRepository the repository for user data
+     * @param rentalImportService the service importing rentals in bulk
+     * @param pictureUploader the uploader of rental pictures, watched for upload completion
+     * @param jsonCache the cache of pre-serialized rentals responses are assembled from
+     * @param objectMapper the JSON mapper used for sparse fieldsets
      */
-    public RentalController(RentalService rentalService) {
+    public RentalController(RentalService rentalService, RentalImportService rentalImportService,
+                            RentalPictureUploader pictureUploader, RentalJsonCache jsonCache, ObjectMapper objectMapper) {
         this.rentalService = rentalService;
+        this.rentalImportService = rentalImportService;
+        this.pictureUploader = pictureUploader;
+        this.jsonCache = jsonCache;
+        this.objectMapper = objectMapper;
     }
     
     /**
-     * Endpoint to retrieve all rentals.
+     * Endpoint to retrieve one page of rentals, optionally filtered by price and surface ranges.
      *
-     * @return a ResponseEntity containing a list of RentalDTOs or an error message
+     * @param minPrice   the lowest accepted price, inclusive
+     * @param maxPrice   the highest accepted price, inclusive
+     * @param minSurface the smallest accepted surface, inclusive
+     * @param maxSurface the largest accepted surface, inclusive
+     * @param sort   the sort order: "-created_at" (default), "created_at", "price", "-price", "surface" or "-surface"; rentals without a value for it come last
+     * @param cursor the cursor returned as "next" by the previous page, omitted for the first page
+     * @param limit  the maximum number of rentals to return
+     * @param fields the comma-separated fields to return for each rental, e.g. "id,name,price,picture"; all by default
+     * @param webRequest the current request, used to evaluate If-None-Match and Accept
+     * @return a ResponseEntity containing a page of RentalDTOs (JSON, CBOR or Smile), 304 Not Modified, or an error status
      */
-    @Operation(summary = "Get all rentals", description = "Fetches a list of all rentals available in the system.")
+    @Operation(summary = "Get rentals", description = "Fetches a page of rentals, optionally filtered by price and surface and sorted by creation date (newest first by default), price or surface. Rentals without a value for the sort come last. Pass the returned \"next\" cursor to fetch the following page. Send Accept: application/cbor or application/x-jackson-smile for a binary encoding.")
     @ApiResponses(value = {
         @ApiResponse(
             responseCode = "200",
             description = "Successfully retrieved rentals",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = RentalDTO[].class))
+            content = {
+                @Content(mediaType = "application/json", schema = @Schema(implementation = RentalsWrapperDTO.class)),
+                @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE, schema = @Schema(implementation = RentalsWrapperDTO.class)),
+                @Content(mediaType = BinaryFormatsConfig.SMILE_VALUE, schema = @Schema(implementation = RentalsWrapperDTO.class))
+            }
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "The rentals have not changed since the ETag or date sent by the client"
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor, sort, limit or fields"
         ),
         @ApiResponse(
             responseCode = "500",
@@ -57,17 +133,255 @@ public class RentalController {
         )
     })
     @GetMapping
-    public ResponseEntity<RentalsWrapperDTO> getAllRentals() {
+    public ResponseEntity<?> getAllRentals(
+        @RequestParam(required = false) Double minPrice,
+        @RequestParam(required = false) Double maxPrice,
+        @RequestParam(required = false) Integer minSurface,
+        @RequestParam(required = false) Integer maxSurface,
+        @RequestParam(required = false) String sort,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int limit,
+        @RequestParam(required = false) String fields,
+        WebRequest webRequest
+    ) {
         try {
-            // Retrieve the list of rentals from the service
-            List<RentalDTO> rentals = rentalService.getAllRentals();
+            RentalSort order = RentalSort.fromParameter(sort);
+            RentalFilter filter = new RentalFilter(minPrice, maxPrice, minSurface, maxSurface);
+            List<RentalField> selected = fields == null ? null : FieldProjections.parse(fields, RentalField.class);
+            MediaType format = BinaryFormats.preferred(webRequest);
 
-            // Wrap the rentals list in RentalsWrapperDTO
-            RentalsWrapperDTO response = new RentalsWrapperDTO(rentals);
+            // The page is a bounded keyset read; its ETag is derived from the rows it returned,
+            // so an unchanged page is answered with 304 before it is serialized
+            if (selected != null) {
+                // Read only the requested columns; the page is validated by the digest of its JSON
+                Map<String, Object> page = rentalService.getRentals(filter, order, cursor, limit, selected);
+                byte[] json = objectMapper.writeValueAsBytes(page);
+                if (webRequest.checkNotModified(ETags.digest(json, BinaryFormats.tag(format)))) {
+                    return null;
+                }
+                return ResponseEntity.ok()
+                    .contentType(format != null ? format : MediaType.APPLICATION_JSON)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(format != null ? page : json);
+            }
+
+            // Retrieve the requested page of rentals from the service
+            RentalsWrapperDTO page = rentalService.getRentals(filter, order, cursor, limit);
+            String etag = ETags.digest(page.getRentals().stream()
+                    .map(rental -> rental.getId() + ":" + rental.getVersion())
+                    .collect(Collectors.joining(",")),
+                page.getNext(), BinaryFormats.tag(format));
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+
+            if (format != null) {
+                // Binary encodings are written by their message converter
+                return ResponseEntity.ok()
+                    .contentType(format)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(page);
+            }
 
-            // Return the wrapped response
-            return ResponseEntity.ok(response);
+            // Assemble the response from the pre-serialized JSON of each rental
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(jsonCache.toJson(page.getRentals(), page.getNext()));
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    /**
+     * Endpoint to retrieve several rentals by ID in one call, optionally with their owners embedded.
+     * Replaces one GET per rental plus one GET per owner with two batched queries.
+     *
+     * @param ids    the comma-separated rental IDs, at most 100; the response keeps their order and skips unknown IDs
+     * @param expand "owner" to embed the owner of each rental
+     * @param webRequest the current request, used to evaluate If-None-Match / If-Modified-Since and Accept
+     * @return a ResponseEntity containing the rentals, 304 Not Modified, or 400 for invalid parameters
+     */
+    @Operation(summary = "Get rentals by IDs", description = "Fetches several rentals in one call, e.g. ?ids=1,2,3&expand=owner. With expand=owner, each rental embeds its owner.")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Rentals found, in the requested order",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = RentalsWrapperDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "The rentals have not changed since the ETag or date sent by the client"
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid IDs, too many IDs or unknown expansion"
+        )
+    })
+    @GetMapping(params = "ids")
+    public ResponseEntity<RentalsWrapperDTO> getRentalsByIds(
+        @RequestParam List<Long> ids,
+        @RequestParam(required = false) String expand,
+        WebRequest webRequest
+    ) {
+        try {
+            if (expand != null && !expand.equals("owner")) {
+                throw new IllegalArgumentException("Unknown expansion: " + expand);
+            }
+            boolean expandOwner = expand != null;
+            RentalsWrapperDTO rentals = rentalService.getRentalsByIds(ids, expandOwner);
+
+            // The rentals are already loaded, but an unchanged response need not be sent again.
+            // Rentals are told apart by version, since updated_at only has a one-second resolution
+            LocalDateTime lastModified = rentals.getRentals().stream()
+                .flatMap(rental -> Stream.of(rental.getUpdatedAt(), rental.getOwner() == null ? null : rental.getOwner().getUpdatedAt()))
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+            String etag = ETags.digest(rentals.getRentals().stream()
+                    .map(rental -> rental.getId() + ":" + rental.getVersion()
+                        + (rental.getOwner() == null ? "" : ":" + ETags.epochMillis(rental.getOwner().getUpdatedAt())))
+                    .collect(Collectors.joining(",")),
+                expand, BinaryFormats.tag(BinaryFormats.preferred(webRequest)));
+            if (webRequest.checkNotModified(etag, ETags.epochMillis(lastModified))) {
+                return null;
+            }
+
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(rentals);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Endpoint streaming every rental as newline-delimited JSON, one RentalDTO per line.
+     * Rows are written to the response as they are read, so memory use does not grow with the table.
+     *
+     * @return a ResponseEntity streaming the rentals
+     */
+    @Operation(summary = "Stream all rentals as NDJSON", description = "Streams every rental, one JSON object per line. Intended for exports and indexers.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rentals streamed", content = @Content(mediaType = NDJSON_VALUE))
+    })
+    @GetMapping(produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamRentalsAsNdjson() {
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+            .body(streamRentals(true));
+    }
+
+    /**
+     * Endpoint streaming every rental as a single JSON array sent in chunks.
+     *
+     * @return a ResponseEntity streaming the rentals
+     */
+    @Operation(summary = "Stream all rentals as a JSON array", description = "Streams every rental as a chunked JSON array. Intended for exports and indexers.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rentals streamed", content = @Content(mediaType = "application/json", schema = @Schema(implementation = RentalDTO[].class)))
+    })
+    @GetMapping(params = "stream=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamRentalsAsJsonArray() {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(streamRentals(false));
+    }
+
+    /**
+     * Joins the names of the requested fields, so sparse representations get their own ETag.
+     *
+     * @param fields the requested fields, or null for the full representation
+     * @return the comma-separated field names, or null
+     */
+    private static String fieldNames(List<RentalField> fields) {
+        return fields == null ? null : fields.stream().map(RentalField::getName).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Builds a response body writing each rental to the output as soon as it is read.
+     *
+     * @param ndjson true to write one document per line, false to write a JSON array
+     * @return the streaming body
+     */
+    private StreamingResponseBody streamRentals(boolean ndjson) {
+        return outputStream -> {
+            if (!ndjson) {
+                outputStream.write('[');
+            }
+            boolean[] first = {true};
+            rentalService.streamRentals(rental -> {
+                try {
+                    if (!ndjson && !first[0]) {
+                        outputStream.write(',');
+                    }
+                    first[0] = false;
+                    outputStream.write(jsonCache.peekJson(rental));
+                    if (ndjson) {
+                        outputStream.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (!ndjson) {
+                outputStream.write(']');
+            }
+        };
+    }
+
+    /**
+     * Endpoint to search rentals by keywords in their name and description.
+     *
+     * @param q     the keywords; the last one also matches longer words it starts
+     * @param limit the maximum number of rentals to return
+     * @return a ResponseEntity containing the matching rentals, best first
+     */
+    @Operation(summary = "Search rentals", description = "Full-text search over rental names and descriptions, ranked by relevance (BM25). The last keyword also matches as a prefix.")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Matching rentals, best first",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = RentalsWrapperDTO.class))
+        ),
+        @ApiResponse(responseCode = "400", description = "Invalid limit")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<RentalsWrapperDTO> searchRentals(
+        @RequestParam String q,
+        @RequestParam(defaultValue = "20") int limit
+    ) {
+        try {
+            return ResponseEntity.ok(rentalService.searchRentals(q, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Endpoint listing the authenticated owner's rentals with their message counts.
+     *
+     * @param authentication the authentication object containing user credentials
+     * @return a ResponseEntity containing the owner's rentals, newest first
+     */
+    @Operation(summary = "Get my rentals", description = "Lists the rentals of the authenticated owner, newest first, each with the number of messages it received.")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Successfully retrieved the owner's rentals",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = RentalsWrapperDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"message\": \"Internal server error\"}"))
+        )
+    })
+    @GetMapping("/mine")
+    public ResponseEntity<RentalsWrapperDTO> getMyRentals(Authentication authentication) {
+        try {
+            return ResponseEntity.ok(rentalService.getOwnerRentals(authentication.getName()));
         } catch (Exception e) {
             return ResponseEntity.status(500).build();
         }
@@ -77,14 +391,24 @@ public class RentalController {
      * Retrieve a rental by its ID.
      * 
      * @param id the ID of the rental
-     * @return a ResponseEntity containing the RentalDTO if found, or 404 Not Found
+     * @param fields the comma-separated fields to return, e.g. "id,name,price"; all by default
+     * @param webRequest the current request, used to evaluate If-None-Match / If-Modified-Since and Accept
+     * @return a ResponseEntity containing the RentalDTO (JSON, CBOR or Smile) if found, 304 Not Modified, 400 for unknown fields, or 404 Not Found
      */
     @Operation(summary = "Get rental by ID")
     @ApiResponses(value = {
     @ApiResponse(
             responseCode = "200",
             description = "Rental found",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = RentalDTO.class))
+            content = {
+                @Content(mediaType = "application/json", schema = @Schema(implementation = RentalDTO.class)),
+                @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE, schema = @Schema(implementation = RentalDTO.class)),
+                @Content(mediaType = BinaryFormatsConfig.SMILE_VALUE, schema = @Schema(implementation = RentalDTO.class))
+            }
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "The rental has not changed since the ETag or date sent by the client"
         ),
         @ApiResponse(
             responseCode = "404",
@@ -98,10 +422,47 @@ public class RentalController {
         )
     })
     @GetMapping("/{id}")
-    public ResponseEntity<RentalDTO> getRentalById(@PathVariable Long id) {
-        Optional<RentalDTO> rental = rentalService.getRentalById(id);
-        return rental.map(ResponseEntity::ok) // Return 200 OK with the rental data
-            .orElseGet(() -> ResponseEntity.notFound().build()); // Return 404 if not found
+    public ResponseEntity<?> getRentalById(
+        @PathVariable Long id,
+        @RequestParam(required = false) String fields,
+        WebRequest webRequest
+    ) {
+        try {
+            List<RentalField> selected = fields == null ? null : FieldProjections.parse(fields, RentalField.class);
+            MediaType format = BinaryFormats.preferred(webRequest);
+
+            // Load the rental through the rentals cache, so a cached rental is validated without a query
+            Optional<RentalDTO> rental = rentalService.getRentalById(id);
+            if (rental.isEmpty()) {
+                return ResponseEntity.notFound().build(); // Return 404 if not found
+            }
+            if (webRequest.checkNotModified(ETags.of(id, rental.get().getVersion(), fieldNames(selected), BinaryFormats.tag(format)),
+                    ETags.epochMillis(rental.get().getUpdatedAt()))) {
+                return null;
+            }
+
+            if (selected != null) {
+                // Read and serialize only the requested columns
+                Optional<Map<String, Object>> fieldValues = rentalService.getRentalById(id, selected);
+                if (fieldValues.isEmpty()) {
+                    return ResponseEntity.notFound().build();
+                }
+                return ResponseEntity.ok()
+                    .contentType(format != null ? format : MediaType.APPLICATION_JSON)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(format != null ? fieldValues.get() : objectMapper.writeValueAsBytes(fieldValues.get()));
+            }
+
+            // Return 200 OK with the rental, pre-serialized when sent as JSON
+            return ResponseEntity.ok()
+                .contentType(format != null ? format : MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(format != null ? rental.get() : jsonCache.toJson(rental.get()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.status(500).build();
+        }
     }
 
     /**
@@ -110,21 +471,32 @@ public class RentalController {
      * This method handles the creation of a rental by accepting details such as the name,
      * surface, price, description, and a picture file. It retrieves the authenticated user's
      * email to associate the rental with the correct user. The rental is then created and
-     * stored in the database.
+     * stored in the database; its picture is uploaded in the background, and the rental's
+     * "picture_status" stays PENDING until then. The Location header gives the rental's URL.
+     * A picture already stored (see GET /api/pictures/{hash}) can be referenced by its hash instead,
+     * a picture sent through a resumable upload (see POST /api/uploads) by the upload's ID, and a picture
+     * uploaded straight to the storage (see POST /api/pictures/direct-uploads) by its reference.
      *
      * @param name        the name of the rental to be created
      * @param surface     the surface area of the rental (in square meters)
      * @param price       the price of the rental (in the chosen currency)
      * @param description a brief description of the rental
      * @param picture     the picture file representing the rental
+     * @param pictureHash the SHA-256 of a picture already stored, sent instead of the picture file
+     * @param uploadId    the ID of a complete resumable upload of the picture, sent instead of the picture file
+     * @param pictureRef  the reference of a picture uploaded straight to the storage, sent instead of the picture file
      * @param authentication the authentication object containing user credentials
      * @return a ResponseEntity containing a success message or an error message
      */
-    @Operation(summary = "Create a new rental")
+    @Operation(summary = "Create a new rental", description = "Stores the rental right away and uploads its picture in the background: poll the rental until \"picture_status\" is READY or FAILED, or wait on GET /api/rentals/{id}/picture. Instead of the picture file, \"pictureHash\" may give the SHA-256 of a picture already stored (see GET /api/pictures/{hash}), \"uploadId\" a complete resumable upload (see POST /api/uploads), or \"pictureRef\" a picture uploaded straight to the storage (see POST /api/pictures/direct-uploads).")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Rental created!"),
         @ApiResponse(responseCode = "400", description = "Invalid input data provided", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"message\": \"Invalid input data provided\"}"))
         ),
+        @ApiResponse(responseCode = "409", description = "A chunk of the resumable upload is still being sent", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"message\": \"A chunk of this upload is still being sent\"}"))
+        ),
+        @ApiResponse(responseCode = "503", description = "The picture storage is saturated or failing; retry after the delay in the Retry-After header", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"message\": \"Too many pictures are waiting for the storage\"}"))
+        ),
         @ApiResponse(responseCode = "500", description = "Internal server error occurred", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"message\": \"Internal server error\"}"))
         )
     })
@@ -135,17 +507,32 @@ public class RentalController {
         Double price,
         String description,
         MultipartFile picture,
+        String pictureHash,
+        String uploadId,
+        String pictureRef,
         Authentication authentication
     ) {
         try {
             // Delegate rental creation to the service layer
-            rentalService.createRental(name, surface, price, description, picture, authentication.getName());
+            RentalDTO rental = rentalService.createRental(name, surface, price, description, picture, pictureHash,
+                uploadId, pictureRef, authentication.getName());
 
             // Return a success message upon successful creation
-            return ResponseEntity.ok(new ResponseMessageDTO("Rental created !"));
+            return ResponseEntity.ok()
+                .header(HttpHeaders.LOCATION, "/api/rentals/" + rental.getId())
+                .body(new ResponseMessageDTO("Rental created !"));
         } catch (IllegalArgumentException e) {
             // Handle invalid input errors
             return ResponseEntity.badRequest().body(new ResponseMessageDTO(e.getMessage()));
+        } catch (IllegalStateException e) {
+            // The resumable upload is busy: the client may retry once its last chunk is written
+            return ResponseEntity.status(409).body(new ResponseMessageDTO(e.getMessage()));
+        } catch (StorageUnavailableException e) {
+            // Refuse fast while the picture storage cannot keep up, telling the client when to retry
+            long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+            return ResponseEntity.status(503)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(new ResponseMessageDTO(e.getMessage()));
         } catch (Exception e) {
             // Handle unexpected server errors
             return ResponseEntity.status(500).body(new ResponseMessageDTO("An internal error occurred"));
@@ -153,6 +540,106 @@ public class RentalController {
     }
 
 
+    /**
+     * Endpoint waiting for the picture of a rental to be uploaded, as a server-sent event stream.
+     *
+     * A single "picture" event carrying the rental is sent once its picture is READY or FAILED,
+     * or right away if it is not PENDING; the stream is then closed. A PENDING picture whose upload
+     * does not run in this instance is polled for until it leaves PENDING.
+     *
+     * @param id the ID of the rental
+     * @return a ResponseEntity streaming the event, or 404 if the rental does not exist
+     */
+    @Operation(summary = "Wait for a rental's picture", description = "Server-sent events: sends one \"picture\" event with the rental once its picture upload has ended (or immediately if its picture is not pending), then closes.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Event stream", content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE, schema = @Schema(implementation = RentalDTO.class))),
+        @ApiResponse(responseCode = "404", description = "Rental not found")
+    })
+    @GetMapping(value = "/{id}/picture", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> watchPicture(@PathVariable Long id) {
+        SseEmitter emitter = new SseEmitter(PICTURE_WAIT_MILLIS);
+        Optional<CompletableFuture<RentalDTO>> upload = pictureUploader.findUpload(id);
+        if (upload.isPresent()) {
+            upload.get().thenAccept(rental -> sendPicture(emitter, rental));
+            return ResponseEntity.ok(emitter);
+        }
+
+        Optional<RentalDTO> rental = rentalService.getRentalById(id);
+        if (rental.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (rental.get().getPictureStatus() == PictureStatus.PENDING) {
+            // Still pending, but no upload running here: it runs on another instance, or has not started yet
+            CompletableFuture<RentalDTO> ended = pictureUploader.awaitPicture(id, Duration.ofMillis(PICTURE_WAIT_MILLIS));
+            ended.thenAccept(updated -> sendPicture(emitter, updated));
+            emitter.onCompletion(() -> ended.cancel(false));
+            return ResponseEntity.ok(emitter);
+        }
+
+        // No upload running: the stored state is final
+        sendPicture(emitter, rental.get());
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Sends the rental whose picture upload has ended and closes the event stream.
+     *
+     * @param emitter the event stream
+     * @param rental  the rental, or null if it no longer exists
+     */
+    private static void sendPicture(SseEmitter emitter, RentalDTO rental) {
+        try {
+            if (rental != null) {
+                emitter.send(SseEmitter.event().name("picture").data(rental, MediaType.APPLICATION_JSON));
+            }
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // The client went away, or the stream already timed out
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * Endpoint to create many rentals of the authenticated owner from a JSON array or a CSV document.
+     *
+     * The body is read as it arrives and stored in batches, each committed on its own; one NDJSON
+     * progress line is written per batch, then a final line with "done": true. The import stops at
+     * the first rejected batch, whose line carries an "error"; the batches before it are kept.
+     * Pictures are given as URLs and uploaded in the background after their batch is committed.
+     *
+     * @param contentType    the media type of the body: application/json or text/csv
+     * @param body           the rentals to import
+     * @param authentication the authentication object containing user credentials
+     * @return a ResponseEntity streaming the progress of the import
+     */
+    @Operation(summary = "Import rentals in bulk", description = "Creates many rentals from a JSON array of {name, surface, price, description, picture} objects, or from CSV with a header row naming the same columns. \"picture\" is the URL of an image, uploaded in the background. Progress is streamed as NDJSON, one line per stored batch.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Import started, progress streamed", content = @Content(mediaType = NDJSON_VALUE, schema = @Schema(implementation = RentalImportProgressDTO.class))),
+        @ApiResponse(responseCode = "415", description = "The body is neither JSON nor CSV")
+    })
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, CSV_VALUE}, produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importRentals(
+        @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+        InputStream body,
+        Authentication authentication
+    ) {
+        boolean csv = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(CSV_VALUE));
+        String email = authentication.getName();
+        StreamingResponseBody progress = outputStream -> rentalImportService.importRentals(body, csv, email, line -> {
+            try {
+                // Flush every line, so the client sees each batch as soon as it is committed
+                outputStream.write(objectMapper.writeValueAsBytes(line));
+                outputStream.write('\n');
+                outputStream.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+            .body(progress);
+    }
+
     /**
      * Update an existing rental by its ID.
      *
@@ -212,4 +699,35 @@ public class RentalController {
         }
     }
 
+    /**
+     * Partially update a rental: only the fields present in the body are changed.
+     *
+     * @param id    the ID of the rental to update
+     * @param patch the fields to change and the version of the rental they were made against
+     * @return a ResponseEntity containing a success message or an error message
+     */
+    @Operation(summary = "Partially update a rental", description = "Changes only the given fields, in a single update. The body must carry the \"version\" of the rental last read; the rental's version is then incremented by one. If the rental changed in the meantime, nothing is written and 409 is returned.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rental successfully updated"),
+        @ApiResponse(responseCode = "400", description = "Missing version or no field to update", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"message\": \"The version of the rental is required\"}"))),
+        @ApiResponse(responseCode = "404", description = "Rental not found", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"message\": \"Rental not found\"}"))),
+        @ApiResponse(responseCode = "409", description = "The rental was updated since the given version", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"message\": \"The rental was updated by someone else, reload it and try again\"}"))),
+        @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"message\": \"Internal server error\"}")))
+    })
+    @PatchMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ResponseMessageDTO> patchRental(@PathVariable Long id, @RequestBody RentalPatchDTO patch) {
+        try {
+            rentalService.patchRental(id, patch);
+            return ResponseEntity.ok(new ResponseMessageDTO("Rental updated !"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ResponseMessageDTO(e.getMessage()));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(404).body(new ResponseMessageDTO("Rental not found"));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).body(new ResponseMessageDTO("The rental was updated by someone else, reload it and try again"));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(new ResponseMessageDTO("An internal error occurred"));
+        }
+    }
+
 }
@@ -0,0 +1,216 @@
+package com.example.rental_backend.controller;
+
+import com.example.rental_backend.dto.ResponseMessageDTO;
+import com.example.rental_backend.dto.UploadDTO;
+import com.example.rental_backend.service.PictureUploads;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Controller for resumable picture uploads.
+ *
+ * A picture is uploaded by creating an upload with its size, then sending it in chunks with PATCH,
+ * each giving the offset it starts at. After a dropped connection, HEAD tells where to resume.
+ * A complete upload is attached to a rental by passing its ID as "uploadId" to POST /api/rentals.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadController {
+
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+    private static final String OFFSET_OCTET_STREAM = "application/offset+octet-stream";
+
+    private final PictureUploads pictureUploads;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param pictureUploads the service keeping the uploads in progress
+     */
+    public UploadController(PictureUploads pictureUploads) {
+        this.pictureUploads = pictureUploads;
+    }
+
+    /**
+     * Endpoint to start a resumable upload.
+     *
+     * @param length         the size of the picture in bytes, from the Upload-Length header
+     * @param authentication the authentication object containing user credentials
+     * @return a ResponseEntity containing the new upload, or an error message
+     */
+    @Operation(summary = "Start a resumable upload", description = "Creates an upload for a picture of \"Upload-Length\" bytes. Send the picture with PATCH to the URL in the Location header.")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "201",
+            description = "Upload created.",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UploadDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "The size is missing or too large.",
+            content = @Content(mediaType = "application/json", schema = @Schema(example = """
+                {
+                    "message": "The picture must not be larger than 10485760 bytes"
+                }
+            """))
+        ),
+        @ApiResponse(
+            responseCode = "429",
+            description = "The user already has the maximum number of uploads in progress.",
+            content = @Content(mediaType = "application/json", schema = @Schema(example = """
+                {
+                    "message": "Too many uploads in progress: finish or cancel one first"
+                }
+            """))
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error.",
+            content = @Content(mediaType = "application/json", schema = @Schema(example = """
+                {
+                    "message": "An internal error occurred"
+                }
+            """))
+        )
+    })
+    @PostMapping
+    public ResponseEntity<?> createUpload(
+        @RequestHeader(name = UPLOAD_LENGTH, required = false) Long length,
+        Authentication authentication
+    ) {
+        try {
+            UploadDTO upload = pictureUploads.create(length, authentication.getName());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .header(HttpHeaders.LOCATION, "/api/uploads/" + upload.getId())
+                .header(UPLOAD_OFFSET, "0")
+                .body(upload);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ResponseMessageDTO(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(new ResponseMessageDTO(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(new ResponseMessageDTO("An internal error occurred"));
+        }
+    }
+
+    /**
+     * Endpoint to find where an upload stands, to resume it.
+     *
+     * @param id             the ID of the upload
+     * @param authentication the authentication object containing user credentials
+     * @return a ResponseEntity with the Upload-Offset and Upload-Length headers
+     */
+    @Operation(summary = "Get the offset of an upload", description = "Answers with the \"Upload-Offset\" the next chunk must start at, and the \"Upload-Length\" of the picture.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "The upload's offset and length are in the headers."),
+        @ApiResponse(responseCode = "404", description = "Upload not found or expired.")
+    })
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> getUploadOffset(@PathVariable String id, Authentication authentication) {
+        try {
+            UploadDTO upload = pictureUploads.find(id, authentication.getName());
+            return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(UPLOAD_OFFSET, String.valueOf(upload.getOffset()))
+                .header(UPLOAD_LENGTH, String.valueOf(upload.getLength()))
+                .build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IOException e) {
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    /**
+     * Endpoint to send a chunk of an upload.
+     *
+     * @param id             the ID of the upload
+     * @param offset         the offset the chunk starts at, from the Upload-Offset header
+     * @param request        the current request, whose body is the chunk
+     * @param authentication the authentication object containing user credentials
+     * @return a ResponseEntity with the new Upload-Offset header, or an error message
+     */
+    @Operation(summary = "Send a chunk of an upload", description = "Appends the request body to the upload. \"Upload-Offset\" must be the current offset of the upload; if the transfer is cut, ask for the offset with HEAD and send the rest.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Chunk received; the new offset is in the Upload-Offset header."),
+        @ApiResponse(
+            responseCode = "400",
+            description = "The chunk goes past the size of the picture.",
+            content = @Content(mediaType = "application/json", schema = @Schema(example = """
+                {
+                    "message": "The chunk goes past the size of the picture"
+                }
+            """))
+        ),
+        @ApiResponse(responseCode = "404", description = "Upload not found or expired."),
+        @ApiResponse(
+            responseCode = "409",
+            description = "The offset is not the current one, or another chunk is being sent.",
+            content = @Content(mediaType = "application/json", schema = @Schema(example = """
+                {
+                    "message": "The upload continues at offset 1048576"
+                }
+            """))
+        )
+    })
+    @PatchMapping(value = "/{id}", consumes = {OFFSET_OCTET_STREAM, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<?> appendChunk(
+        @PathVariable String id,
+        @RequestHeader(name = UPLOAD_OFFSET, required = false) Long offset,
+        HttpServletRequest request,
+        Authentication authentication
+    ) {
+        try {
+            UploadDTO upload = pictureUploads.append(id, offset, request.getInputStream(), authentication.getName());
+            return ResponseEntity.noContent()
+                .header(UPLOAD_OFFSET, String.valueOf(upload.getOffset()))
+                .build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ResponseMessageDTO("Upload not found"));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ResponseMessageDTO(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ResponseMessageDTO(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(new ResponseMessageDTO("An internal error occurred"));
+        }
+    }
+
+    /**
+     * Endpoint to abandon an upload.
+     *
+     * @param id             the ID of the upload
+     * @param authentication the authentication object containing user credentials
+     * @return a ResponseEntity with no content, or 404 if the upload is unknown
+     */
+    @Operation(summary = "Abandon an upload", description = "Deletes an upload and the bytes received.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Upload deleted."),
+        @ApiResponse(responseCode = "404", description = "Upload not found or expired.")
+    })
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancelUpload(@PathVariable String id, Authentication authentication) {
+        try {
+            pictureUploads.cancel(id, authentication.getName());
+            return ResponseEntity.noContent().build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
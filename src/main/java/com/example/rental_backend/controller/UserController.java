@@ -1,6 +1,9 @@
 package com.example.rental_backend.controller;
 
+import com.example.rental_backend.config.BinaryFormatsConfig;
 import com.example.rental_backend.dto.UserDTO;
+import com.example.rental_backend.repository.FieldProjections;
+import com.example.rental_backend.repository.UserField;
 import com.example.rental_backend.service.UserService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -9,8 +12,16 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,14 +50,24 @@ public class UserController {
      * Retrieve a user by their ID.
      *
      * @param id the ID of the user
-     * @return a ResponseEntity containing the UserDTO if found, or an error message
+     * @param fields the comma-separated fields to return, e.g. "id,name"; all by default
+     * @param webRequest the current request, used to evaluate If-None-Match / If-Modified-Since and Accept
+     * @return a ResponseEntity containing the UserDTO if found, 304 Not Modified, or an error message
      */
     @Operation(summary = "Get user by ID", description = "Fetches details of a user by their unique ID.")
     @ApiResponses(value = {
         @ApiResponse(
             responseCode = "200",
             description = "User found",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserDTO.class))
+            content = {
+                @Content(mediaType = "application/json", schema = @Schema(implementation = UserDTO.class)),
+                @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE, schema = @Schema(implementation = UserDTO.class)),
+                @Content(mediaType = BinaryFormatsConfig.SMILE_VALUE, schema = @Schema(implementation = UserDTO.class))
+            }
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "The user has not changed since the ETag or date sent by the client"
         ),
         @ApiResponse(
             responseCode = "404",
@@ -68,19 +89,43 @@ public class UserController {
         )
     })
     @GetMapping("/{id}")
-    public ResponseEntity<UserDTO> getUserById(@PathVariable Long id) {
+    public ResponseEntity<?> getUserById(
+        @PathVariable Long id,
+        @RequestParam(required = false) String fields,
+        WebRequest webRequest
+    ) {
         try {
             logger.info("Fetching user with ID: {}", id);
 
+            List<UserField> selected = fields == null ? null : FieldProjections.parse(fields, UserField.class);
+            MediaType format = BinaryFormats.preferred(webRequest);
+
+            // Answer 304 from the update timestamp alone, before loading or serializing the user
+            Optional<LocalDateTime> lastModified = userService.getUserLastModified(id);
+            String fieldNames = selected == null ? null
+                : selected.stream().map(UserField::getName).collect(Collectors.joining(","));
+            if (lastModified.isPresent()
+                && webRequest.checkNotModified(ETags.of(id, lastModified.get(), fieldNames, BinaryFormats.tag(format)), ETags.epochMillis(lastModified.get()))) {
+                return null;
+            }
+
+            if (selected != null) {
+                // Read and return only the requested columns
+                return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(userService.getUserById(id, selected));
+            }
+
             UserDTO user = userService.getUserById(id);
 
             if (user != null) {
                 logger.info("User found: {}", user);
-                return ResponseEntity.ok(user);
+                return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(user);
             } else {
                 logger.warn("User not found with ID: {}", id);
                 return ResponseEntity.notFound().build();
             }
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid fields requested for user {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Error fetching user with ID: {}", id, e);
             return ResponseEntity.status(500).build();
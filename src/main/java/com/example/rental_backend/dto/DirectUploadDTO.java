@@ -0,0 +1,133 @@
+package com.example.rental_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * DTO giving a client what it needs to upload a picture straight to the image storage.
+ *
+ * The client sends the picture to the URL with the method given, adding the form fields (for a POST,
+ * with the picture as the "file" field), then creates the rental with the picture reference.
+ */
+public class DirectUploadDTO {
+
+    private String url; // URL to send the picture to
+
+    private String method; // HTTP method to use: POST (multipart form) or PUT (raw bytes)
+
+    private Map<String, String> fields; // Form fields to send with the picture, signed by the server
+
+    @JsonProperty("picture_ref")
+    private String pictureRef; // Reference of the picture, given as "pictureRef" when creating the rental (mapped to "picture_ref" in JSON)
+
+    @JsonProperty("expires_at")
+    private LocalDateTime expiresAt; // Time after which the storage refuses the upload (mapped to "expires_at" in JSON)
+
+    /**
+     * Default constructor, used when a response is decoded back into a DirectUploadDTO.
+     */
+    public DirectUploadDTO() {
+    }
+
+    /**
+     * Constructor for initializing the DirectUploadDTO.
+     * @param url the URL to send the picture to
+     * @param method the HTTP method to use
+     * @param fields the form fields to send with the picture
+     * @param pictureRef the reference of the picture
+     * @param expiresAt the time after which the upload is refused
+     */
+    public DirectUploadDTO(String url, String method, Map<String, String> fields, String pictureRef, LocalDateTime expiresAt) {
+        this.url = url;
+        this.method = method;
+        this.fields = fields;
+        this.pictureRef = pictureRef;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Gets the URL to send the picture to.
+     * @return the upload URL
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Sets the URL to send the picture to.
+     * @param url the upload URL
+     */
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    /**
+     * Gets the HTTP method to use.
+     * @return POST or PUT
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Sets the HTTP method to use.
+     * @param method POST or PUT
+     */
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    /**
+     * Gets the form fields to send with the picture.
+     * @return the signed form fields, empty for a PUT
+     */
+    public Map<String, String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Sets the form fields to send with the picture.
+     * @param fields the signed form fields
+     */
+    public void setFields(Map<String, String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Gets the reference of the picture, to create the rental with once uploaded.
+     * Mapped to "picture_ref" in the JSON object.
+     * @return the picture reference
+     */
+    public String getPictureRef() {
+        return pictureRef;
+    }
+
+    /**
+     * Sets the reference of the picture.
+     * Mapped to "picture_ref" in the JSON object.
+     * @param pictureRef the picture reference
+     */
+    public void setPictureRef(String pictureRef) {
+        this.pictureRef = pictureRef;
+    }
+
+    /**
+     * Gets the time after which the storage refuses the upload.
+     * Mapped to "expires_at" in the JSON object.
+     * @return the expiry time
+     */
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Sets the time after which the storage refuses the upload.
+     * Mapped to "expires_at" in the JSON object.
+     * @param expiresAt the expiry time
+     */
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
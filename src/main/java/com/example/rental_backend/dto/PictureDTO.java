@@ -0,0 +1,88 @@
+package com.example.rental_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+
+/**
+ * DTO describing a picture already stored, found by the SHA-256 of its content.
+ */
+public class PictureDTO {
+
+    private String hash; // Lowercase hexadecimal SHA-256 of the picture's bytes
+
+    private String picture; // URL of the stored picture
+
+    @JsonProperty("picture_variants")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<Integer, String> pictureVariants; // URLs of the resized pictures by width (mapped to "picture_variants" in JSON)
+
+    /**
+     * Default constructor, used when a response is decoded back into a PictureDTO.
+     */
+    public PictureDTO() {
+    }
+
+    /**
+     * Constructor for initializing the PictureDTO.
+     * @param hash the SHA-256 of the picture
+     * @param picture the URL of the stored picture
+     * @param pictureVariants the URLs of the resized pictures by width
+     */
+    public PictureDTO(String hash, String picture, Map<Integer, String> pictureVariants) {
+        this.hash = hash;
+        this.picture = picture;
+        this.pictureVariants = pictureVariants;
+    }
+
+    /**
+     * Gets the SHA-256 of the picture.
+     * @return the lowercase hexadecimal hash
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * Sets the SHA-256 of the picture.
+     * @param hash the lowercase hexadecimal hash
+     */
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * Gets the URL of the stored picture.
+     * @return the URL
+     */
+    public String getPicture() {
+        return picture;
+    }
+
+    /**
+     * Sets the URL of the stored picture.
+     * @param picture the URL
+     */
+    public void setPicture(String picture) {
+        this.picture = picture;
+    }
+
+    /**
+     * Gets the URLs of the resized pictures by width.
+     * Mapped to "picture_variants" in the JSON object.
+     * @return the variant URLs, or null
+     */
+    public Map<Integer, String> getPictureVariants() {
+        return pictureVariants;
+    }
+
+    /**
+     * Sets the URLs of the resized pictures by width.
+     * Mapped to "picture_variants" in the JSON object.
+     * @param pictureVariants the variant URLs
+     */
+    public void setPictureVariants(Map<Integer, String> pictureVariants) {
+        this.pictureVariants = pictureVariants;
+    }
+}
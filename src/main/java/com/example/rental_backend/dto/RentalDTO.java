@@ -1,7 +1,10 @@
 package com.example.rental_backend.dto;
 
+import com.example.rental_backend.model.PictureStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDateTime;
+import java.util.Map;
 
 /**
  * DTO for transferring rental information between the client and the backend.
@@ -18,6 +21,14 @@ public class RentalDTO {
 
     private String picture; // URL or path to the picture of the rental
 
+    @JsonProperty("picture_status")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private PictureStatus pictureStatus; // Whether the picture is still being uploaded (mapped to "picture_status" in JSON)
+
+    @JsonProperty("picture_variants")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<Integer, String> pictureVariants; // URLs of smaller versions of the picture by width (mapped to "picture_variants" in JSON)
+
     private String description; // Description of the rental
 
     @JsonProperty("owner_id")
@@ -29,6 +40,80 @@ public class RentalDTO {
     @JsonProperty("updated_at")
     private LocalDateTime updatedAt; // Timestamp when the rental was last updated (mapped to "updated_at" in JSON)
 
+    private Long version; // Version of the rental, sent back with PATCH requests to detect concurrent updates
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private UserDTO owner; // Owner details, only present when requested with expand=owner
+
+    @JsonProperty("message_count")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long messageCount; // Number of messages received, only present in the owner's own listing
+
+    /**
+     * Default constructor, used when the DTO is filled through its setters.
+     */
+    public RentalDTO() {
+    }
+
+    /**
+     * Constructor for RentalDTO, used by JPQL constructor expressions to project
+     * rental rows directly into DTOs.
+     *
+     * @param id the rental ID
+     * @param name the rental name
+     * @param surface the rental surface area
+     * @param price the rental price
+     * @param picture the rental picture
+     * @param description the rental description
+     * @param ownerId the owner ID
+     * @param createdAt the creation timestamp
+     * @param updatedAt the update timestamp
+     * @param version the version of the rental
+     * @param pictureStatus the state of the rental's picture upload
+     * @param pictureVariants the URLs of the resized pictures by width
+     */
+    public RentalDTO(Long id, String name, Integer surface, Double price, String picture, String description,
+                     Long ownerId, LocalDateTime createdAt, LocalDateTime updatedAt, Long version,
+                     PictureStatus pictureStatus, Map<Integer, String> pictureVariants) {
+        this.id = id;
+        this.name = name;
+        this.surface = surface;
+        this.price = price;
+        this.picture = picture;
+        this.description = description;
+        this.ownerId = ownerId;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.version = version;
+        this.pictureStatus = pictureStatus;
+        this.pictureVariants = pictureVariants;
+    }
+
+    /**
+     * Constructor for RentalDTO, used by JPQL constructor expressions that also count the rental's messages.
+     *
+     * @param id the rental ID
+     * @param name the rental name
+     * @param surface the rental surface area
+     * @param price the rental price
+     * @param picture the rental picture
+     * @param description the rental description
+     * @param ownerId the owner ID
+     * @param createdAt the creation timestamp
+     * @param updatedAt the update timestamp
+     * @param version the version of the rental
+     * @param pictureStatus the state of the rental's picture upload
+     * @param pictureVariants the URLs of the resized pictures by width
+     * @param messageCount the number of messages received for the rental
+     */
+    public RentalDTO(Long id, String name, Integer surface, Double price, String picture, String description,
+                     Long ownerId, LocalDateTime createdAt, LocalDateTime updatedAt, Long version,
+                     PictureStatus pictureStatus, Map<Integer, String> pictureVariants, Long messageCount) {
+        this(id, name, surface, price, picture, description, ownerId, createdAt, updatedAt, version, pictureStatus,
+            pictureVariants);
+        this.messageCount = messageCount;
+    }
+
     // Getters
     /**
      * Gets the unique identifier for the rental.
@@ -105,6 +190,49 @@ public class RentalDTO {
         return updatedAt;
     }
 
+    /**
+     * Gets the state of the rental's picture upload.
+     * Mapped to "picture_status" in the JSON object.
+     * @return the picture status, or null for rentals created without a picture
+     */
+    public PictureStatus getPictureStatus() {
+        return pictureStatus;
+    }
+
+    /**
+     * Gets the URLs of smaller versions of the picture, by width in pixels.
+     * Mapped to "picture_variants" in the JSON object.
+     * @return the variant URLs, or null if the rental has none
+     */
+    public Map<Integer, String> getPictureVariants() {
+        return pictureVariants;
+    }
+
+    /**
+     * Gets the version of the rental, incremented by every update.
+     * @return the version
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the owner of the rental, embedded when requested with expand=owner.
+     * @return the owner, or null if not expanded
+     */
+    public UserDTO getOwner() {
+        return owner;
+    }
+
+    /**
+     * Gets the number of messages received for the rental, present in the owner's own listing.
+     * Mapped to "message_count" in the JSON object.
+     * @return the message count, or null if not counted
+     */
+    public Long getMessageCount() {
+        return messageCount;
+    }
+
     // Setters
     /**
      * Sets the unique identifier for the rental.
@@ -180,4 +308,47 @@ public class RentalDTO {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    /**
+     * Sets the state of the rental's picture upload.
+     * Mapped to "picture_status" in the JSON object.
+     * @param pictureStatus the picture status
+     */
+    public void setPictureStatus(PictureStatus pictureStatus) {
+        this.pictureStatus = pictureStatus;
+    }
+
+    /**
+     * Sets the URLs of smaller versions of the picture, by width in pixels.
+     * Mapped to "picture_variants" in the JSON object.
+     * @param pictureVariants the variant URLs
+     */
+    public void setPictureVariants(Map<Integer, String> pictureVariants) {
+        this.pictureVariants = pictureVariants;
+    }
+
+    /**
+     * Sets the version of the rental.
+     * @param version the version
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Sets the embedded owner of the rental.
+     * @param owner the owner
+     */
+    public void setOwner(UserDTO owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Sets the number of messages received for the rental.
+     * Mapped to "message_count" in the JSON object.
+     * @param messageCount the message count
+     */
+    public void setMessageCount(Long messageCount) {
+        this.messageCount = messageCount;
+    }
 }
@@ -0,0 +1,101 @@
+package com.example.rental_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * DTO for one rental of a bulk import, read from a JSON array element or a CSV row.
+ * The picture is the URL of an image to copy into the rental's picture once the rental is stored.
+ */
+@JsonPropertyOrder({"name", "surface", "price", "description", "picture"})
+public class RentalImportDTO {
+
+    private String name; // Name of the rental
+
+    private Integer surface; // Surface area in square meters
+
+    private Double price; // Price of the rental
+
+    private String description; // Description of the rental
+
+    private String picture; // URL of the source picture, or null for none
+
+    /**
+     * Gets the name of the rental.
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the name of the rental.
+     * @param name the name
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the surface area of the rental.
+     * @return the surface
+     */
+    public Integer getSurface() {
+        return surface;
+    }
+
+    /**
+     * Sets the surface area of the rental.
+     * @param surface the surface
+     */
+    public void setSurface(Integer surface) {
+        this.surface = surface;
+    }
+
+    /**
+     * Gets the price of the rental.
+     * @return the price
+     */
+    public Double getPrice() {
+        return price;
+    }
+
+    /**
+     * Sets the price of the rental.
+     * @param price the price
+     */
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    /**
+     * Gets the description of the rental.
+     * @return the description
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Sets the description of the rental.
+     * @param description the description
+     */
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Gets the URL of the source picture.
+     * @return the picture URL, or null
+     */
+    public String getPicture() {
+        return picture;
+    }
+
+    /**
+     * Sets the URL of the source picture.
+     * @param picture the picture URL
+     */
+    public void setPicture(String picture) {
+        this.picture = picture;
+    }
+}
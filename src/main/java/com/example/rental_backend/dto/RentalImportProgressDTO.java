@@ -0,0 +1,103 @@
+package com.example.rental_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * DTO reporting the progress of a bulk import, written once per committed batch
+ * and once more when the import ends.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RentalImportProgressDTO {
+
+    private Integer batch; // Number of the batch just committed or rejected, starting at 1
+
+    private long imported; // Rentals stored so far, over all committed batches
+
+    private String error; // Why the batch was rejected, or null
+
+    private Boolean done; // True on the last line, once the import has ended
+
+    /**
+     * Default constructor, used when a progress line is decoded back into a RentalImportProgressDTO.
+     */
+    public RentalImportProgressDTO() {
+    }
+
+    /**
+     * Constructor for initializing a progress line.
+     * @param batch the number of the batch, or null on the last line
+     * @param imported the number of rentals stored so far
+     * @param error why the batch was rejected, or null
+     * @param done true on the last line, null otherwise
+     */
+    public RentalImportProgressDTO(Integer batch, long imported, String error, Boolean done) {
+        this.batch = batch;
+        this.imported = imported;
+        this.error = error;
+        this.done = done;
+    }
+
+    /**
+     * Gets the number of the batch.
+     * @return the batch number, or null on the last line
+     */
+    public Integer getBatch() {
+        return batch;
+    }
+
+    /**
+     * Sets the number of the batch.
+     * @param batch the batch number
+     */
+    public void setBatch(Integer batch) {
+        this.batch = batch;
+    }
+
+    /**
+     * Gets the number of rentals stored so far.
+     * @return the number of imported rentals
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * Sets the number of rentals stored so far.
+     * @param imported the number of imported rentals
+     */
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    /**
+     * Gets why the batch was rejected.
+     * @return the error, or null
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Sets why the batch was rejected.
+     * @param error the error
+     */
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * Tells whether this is the last line of the import.
+     * @return true on the last line, null otherwise
+     */
+    public Boolean getDone() {
+        return done;
+    }
+
+    /**
+     * Sets whether this is the last line of the import.
+     * @param done true on the last line
+     */
+    public void setDone(Boolean done) {
+        this.done = done;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.rental_backend.dto;
+
+/**
+ * DTO for partially updating a rental. Fields left null are not changed.
+ * The version is the one the client last read, so that concurrent updates are detected.
+ */
+public class RentalPatchDTO {
+
+    private String name; // New name of the rental, or null to keep it
+
+    private Integer surface; // New surface area in square meters, or null to keep it
+
+    private Double price; // New price, or null to keep it
+
+    private String description; // New description, or null to keep it
+
+    private Long version; // Version of the rental the changes were made against
+
+    /**
+     * Gets the new name of the rental.
+     * @return the new name, or null if unchanged
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the new name of the rental.
+     * @param name the new name
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the new surface area of the rental.
+     * @return the new surface, or null if unchanged
+     */
+    public Integer getSurface() {
+        return surface;
+    }
+
+    /**
+     * Sets the new surface area of the rental.
+     * @param surface the new surface
+     */
+    public void setSurface(Integer surface) {
+        this.surface = surface;
+    }
+
+    /**
+     * Gets the new price of the rental.
+     * @return the new price, or null if unchanged
+     */
+    public Double getPrice() {
+        return price;
+    }
+
+    /**
+     * Sets the new price of the rental.
+     * @param price the new price
+     */
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    /**
+     * Gets the new description of the rental.
+     * @return the new description, or null if unchanged
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Sets the new description of the rental.
+     * @param description the new description
+     */
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Gets the version of the rental the changes were made against.
+     * @return the expected version
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the rental the changes were made against.
+     * @param version the expected version
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
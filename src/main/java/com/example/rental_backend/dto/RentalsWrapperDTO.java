@@ -10,6 +10,14 @@ public class RentalsWrapperDTO {
 
     private List<RentalDTO> rentals; // List of rental data transfer objects
 
+    private String next; // Opaque cursor for the next page, null on the last page
+
+    /**
+     * Default constructor, used when a response is decoded back into a RentalsWrapperDTO.
+     */
+    public RentalsWrapperDTO() {
+    }
+
     /**
      * Constructor for initializing the RentalsWrapperDTO.
      * @param rentals the list of RentalDTO objects to wrap
@@ -18,6 +26,16 @@ public class RentalsWrapperDTO {
         this.rentals = rentals;
     }
 
+    /**
+     * Constructor for initializing a page of rentals.
+     * @param rentals the list of RentalDTO objects to wrap
+     * @param next the cursor of the next page, or null if this is the last page
+     */
+    public RentalsWrapperDTO(List<RentalDTO> rentals, String next) {
+        this.rentals = rentals;
+        this.next = next;
+    }
+
     /**
      * Gets the list of RentalDTO objects.
      * @return the list of rentals
@@ -33,4 +51,20 @@ public class RentalsWrapperDTO {
     public void setRentals(List<RentalDTO> rentals) {
         this.rentals = rentals;
     }
+
+    /**
+     * Gets the cursor to pass back to fetch the next page.
+     * @return the next cursor, or null if there are no more rentals
+     */
+    public String getNext() {
+        return next;
+    }
+
+    /**
+     * Sets the cursor of the next page.
+     * @param next the next cursor
+     */
+    public void setNext(String next) {
+        this.next = next;
+    }
 }
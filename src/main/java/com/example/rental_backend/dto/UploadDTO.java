@@ -0,0 +1,106 @@
+package com.example.rental_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO describing a resumable picture upload and how far it went.
+ */
+public class UploadDTO {
+
+    private String id; // Identifier of the upload, given as "uploadId" when creating the rental
+
+    private long offset; // Number of bytes received so far
+
+    private long length; // Total number of bytes announced when the upload was created
+
+    @JsonProperty("expires_at")
+    private LocalDateTime expiresAt; // Time after which an unfinished upload is discarded (mapped to "expires_at" in JSON)
+
+    /**
+     * Default constructor, used when a response is decoded back into an UploadDTO.
+     */
+    public UploadDTO() {
+    }
+
+    /**
+     * Constructor for initializing the UploadDTO.
+     * @param id the identifier of the upload
+     * @param offset the number of bytes received so far
+     * @param length the total number of bytes of the picture
+     * @param expiresAt the time after which an unfinished upload is discarded
+     */
+    public UploadDTO(String id, long offset, long length, LocalDateTime expiresAt) {
+        this.id = id;
+        this.offset = offset;
+        this.length = length;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Gets the identifier of the upload.
+     * @return the upload ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the identifier of the upload.
+     * @param id the upload ID
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the number of bytes received so far, where the next chunk must start.
+     * @return the offset
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Sets the number of bytes received so far.
+     * @param offset the offset
+     */
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    /**
+     * Gets the total number of bytes of the picture.
+     * @return the length
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Sets the total number of bytes of the picture.
+     * @param length the length
+     */
+    public void setLength(long length) {
+        this.length = length;
+    }
+
+    /**
+     * Gets the time after which an unfinished upload is discarded.
+     * Mapped to "expires_at" in the JSON object.
+     * @return the expiry time
+     */
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Sets the time after which an unfinished upload is discarded.
+     * Mapped to "expires_at" in the JSON object.
+     * @param expiresAt the expiry time
+     */
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -7,11 +7,14 @@ import java.time.LocalDateTime;
  * Entity representing a message in the system.
  */
 @Entity
-@Table(name = "MESSAGES") // Maps this entity to the "MESSAGES" table in the database
+@Table(name = "MESSAGES", indexes = { // Maps this entity to the "MESSAGES" table in the database
+    @Index(name = "MESSAGES_rental_id_index", columnList = "rental_id") // Message counts per rental
+})
 public class Message {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Auto-increment ID
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "messages_seq") // Pooled ID, so inserts can be batched
+    @SequenceGenerator(name = "messages_seq", sequenceName = "MESSAGES_SEQ", allocationSize = 50) // IDs reserved 50 at a time
     private Long id; // Unique identifier for the message
 
     @Column(nullable = false) // Message content must not be null
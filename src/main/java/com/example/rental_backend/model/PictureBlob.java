@@ -0,0 +1,129 @@
+package com.example.rental_backend.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Entity recording a picture already stored, by the SHA-256 of its content,
+ * so that identical uploads reuse it instead of storing the same bytes again.
+ *
+ * Its ID is assigned, so it tells Spring Data whether it is new: a new record is always inserted,
+ * and one for content recorded meanwhile fails on the key instead of overwriting the first record.
+ */
+@Entity
+@Table(name = "PICTURE_BLOBS") // Maps this entity to the "PICTURE_BLOBS" table in the database
+public class PictureBlob implements Persistable<String> {
+
+    @Id
+    @Column(length = 64) // Lowercase hexadecimal SHA-256 of the picture's bytes
+    private String hash;
+
+    @Column(nullable = false) // URL of the stored picture
+    private String url;
+
+    @Convert(converter = PictureVariantsConverter.class)
+    @Column(length = 1000) // URLs of the resized pictures by width
+    private Map<Integer, String> variants;
+
+    @Column(name = "created_at", nullable = false) // Maps to "created_at" in the database
+    private LocalDateTime createdAt; // Timestamp when the picture was first stored
+
+    @Transient
+    private boolean isNew = true; // Until persisted or loaded
+
+    /**
+     * Marks the record as existing once it is persisted or loaded.
+     */
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    // Getters and Setters
+
+    /**
+     * Gets the ID of the record, the hash of the picture.
+     * @return the lowercase hexadecimal hash
+     */
+    @Override
+    public String getId() {
+        return hash;
+    }
+
+    /**
+     * Tells whether the record is yet to be inserted.
+     * @return true until it is persisted or loaded
+     */
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    /**
+     * Gets the SHA-256 of the picture's bytes.
+     * @return the lowercase hexadecimal hash
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * Sets the SHA-256 of the picture's bytes.
+     * @param hash the lowercase hexadecimal hash
+     */
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * Gets the URL of the stored picture.
+     * @return the URL
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Sets the URL of the stored picture.
+     * @param url the URL
+     */
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    /**
+     * Gets the URLs of the resized pictures by width.
+     * @return the variant URLs, or null if there are none
+     */
+    public Map<Integer, String> getVariants() {
+        return variants;
+    }
+
+    /**
+     * Sets the URLs of the resized pictures by width.
+     * @param variants the variant URLs
+     */
+    public void setVariants(Map<Integer, String> variants) {
+        this.variants = variants;
+    }
+
+    /**
+     * Gets the timestamp when the picture was first stored.
+     * @return the creation timestamp
+     */
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Sets the timestamp when the picture was first stored.
+     * @param createdAt the creation timestamp
+     */
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.rental_backend.model;
+
+/**
+ * State of a rental's picture, which is uploaded in the background after the rental is stored.
+ */
+public enum PictureStatus {
+
+    PENDING, // The upload is queued or running; the rental has no picture yet
+    READY,   // The picture is uploaded and its URL is set
+    FAILED   // The upload failed; the rental has no picture
+}
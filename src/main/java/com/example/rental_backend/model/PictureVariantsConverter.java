@@ -0,0 +1,43 @@
+package com.example.rental_backend.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stores the URLs of a picture's variants by width in a single column, as "200=url 480=url".
+ * URLs never contain unencoded spaces, so a space is a safe separator.
+ */
+@Converter
+public class PictureVariantsConverter implements AttributeConverter<Map<Integer, String>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(Map<Integer, String> variants) {
+        if (variants == null || variants.isEmpty()) {
+            return null;
+        }
+        StringBuilder column = new StringBuilder();
+        new TreeMap<>(variants).forEach((width, url) -> {
+            if (column.length() > 0) {
+                column.append(' ');
+            }
+            column.append(width).append('=').append(url);
+        });
+        return column.toString();
+    }
+
+    @Override
+    public Map<Integer, String> convertToEntityAttribute(String column) {
+        if (column == null || column.isEmpty()) {
+            return null;
+        }
+        Map<Integer, String> variants = new TreeMap<>();
+        for (String variant : column.split(" ")) {
+            int separator = variant.indexOf('=');
+            variants.put(Integer.valueOf(variant.substring(0, separator)), variant.substring(separator + 1));
+        }
+        return variants;
+    }
+}
@@ -1,20 +1,33 @@
 package com.example.rental_backend.model;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Entity
-@Table(name = "RENTALS")
+@Table(name = "RENTALS", indexes = {
+    @Index(name = "RENTALS_created_at_id_index", columnList = "created_at, id"), // Keyset pagination of the listing
+    @Index(name = "RENTALS_price_id_index", columnList = "price, id"), // Price range filter and sort
+    @Index(name = "RENTALS_surface_id_index", columnList = "surface, id"), // Surface range filter and sort
+    @Index(name = "RENTALS_owner_id_created_at_id_index", columnList = "owner_id, created_at, id") // Owner's own listing
+})
 public class Rental {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rentals_seq")
+    @SequenceGenerator(name = "rentals_seq", sequenceName = "RENTALS_SEQ", allocationSize = 50) // IDs reserved 50 at a time, so inserts can be batched
     private Long id;
 
     private String name;
@@ -22,6 +35,14 @@ public class Rental {
     private Double price;
     private String picture;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "picture_status", length = 10)
+    private PictureStatus pictureStatus; // Null for rentals created without a picture
+
+    @Convert(converter = PictureVariantsConverter.class)
+    @Column(name = "picture_variants", length = 1000)
+    private Map<Integer, String> pictureVariants; // URLs of the resized pictures by width
+
     @Column(length = 2000)
     private String description;
 
@@ -34,6 +55,10 @@ public class Rental {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(nullable = false)
+    private Long version; // Optimistic lock, incremented by every update
+
     // Getters and Setters
 
     public Long getId() {
@@ -76,6 +101,22 @@ public class Rental {
         this.picture = picture;
     }
 
+    public PictureStatus getPictureStatus() {
+        return pictureStatus;
+    }
+
+    public void setPictureStatus(PictureStatus pictureStatus) {
+        this.pictureStatus = pictureStatus;
+    }
+
+    public Map<Integer, String> getPictureVariants() {
+        return pictureVariants;
+    }
+
+    public void setPictureVariants(Map<Integer, String> pictureVariants) {
+        this.pictureVariants = pictureVariants;
+    }
+
     public String getDescription() {
         return description;
     }
@@ -108,4 +149,12 @@ public class Rental {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
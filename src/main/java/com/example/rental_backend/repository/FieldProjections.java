@@ -0,0 +1,82 @@
+package com.example.rental_backend.repository;
+
+import jakarta.persistence.Tuple;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Helpers for sparse fieldsets: parsing the "fields" query parameter, selecting only
+ * the requested columns, and turning the resulting tuples into JSON-ready maps.
+ */
+public final class FieldProjections {
+
+    private FieldProjections() {
+    }
+
+    /**
+     * Parses a comma-separated list of field names, e.g. "id,name,price".
+     *
+     * @param parameter the value of the "fields" query parameter
+     * @param type      the enum of selectable fields
+     * @return the requested fields, in the requested order and without duplicates
+     * @throws IllegalArgumentException if a field is unknown or none is given
+     */
+    public static <F extends Enum<F> & ProjectedField> List<F> parse(String parameter, Class<F> type) {
+        Set<F> fields = new LinkedHashSet<>();
+        for (String name : parameter.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            F field = null;
+            for (F candidate : type.getEnumConstants()) {
+                if (candidate.getName().equals(trimmed)) {
+                    field = candidate;
+                }
+            }
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field: " + trimmed);
+            }
+            fields.add(field);
+        }
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("At least one field must be requested");
+        }
+        return new ArrayList<>(fields);
+    }
+
+    /**
+     * Builds the JPQL select list of the given fields, each aliased by its API name.
+     *
+     * @param alias  the entity alias, e.g. "r"
+     * @param fields the requested fields
+     * @return the select items, e.g. "r.id AS id, r.ownerId AS owner_id"
+     */
+    static String selectList(String alias, List<? extends ProjectedField> fields) {
+        List<String> items = new ArrayList<>();
+        for (ProjectedField field : fields) {
+            items.add(alias + "." + field.getAttribute() + " AS " + field.getName());
+        }
+        return String.join(", ", items);
+    }
+
+    /**
+     * Copies the requested fields of a result tuple into a map, in the requested order.
+     *
+     * @param tuple  a row selected with {@link #selectList}
+     * @param fields the requested fields
+     * @return the field values keyed by API name
+     */
+    public static Map<String, Object> toMap(Tuple tuple, List<? extends ProjectedField> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (ProjectedField field : fields) {
+            values.put(field.getName(), tuple.get(field.getName()));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.rental_backend.repository;
+
+import com.example.rental_backend.model.PictureBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PictureBlobRepository extends JpaRepository<PictureBlob, String> {
+}
@@ -0,0 +1,20 @@
+package com.example.rental_backend.repository;
+
+/**
+ * A field that clients can select with the "fields" query parameter,
+ * mapped to the entity attribute it is read from.
+ */
+public interface ProjectedField {
+
+    /**
+     * Gets the name of the field in API responses.
+     * @return the JSON property name
+     */
+    String getName();
+
+    /**
+     * Gets the entity attribute holding the field.
+     * @return the JPQL attribute name
+     */
+    String getAttribute();
+}
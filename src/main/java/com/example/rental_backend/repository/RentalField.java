@@ -0,0 +1,38 @@
+package com.example.rental_backend.repository;
+
+/**
+ * Rental fields that can be requested individually, named as in RentalDTO's JSON.
+ */
+public enum RentalField implements ProjectedField {
+
+    ID("id", "id"),
+    NAME("name", "name"),
+    SURFACE("surface", "surface"),
+    PRICE("price", "price"),
+    PICTURE("picture", "picture"),
+    PICTURE_STATUS("picture_status", "pictureStatus"),
+    PICTURE_VARIANTS("picture_variants", "pictureVariants"),
+    DESCRIPTION("description", "description"),
+    OWNER_ID("owner_id", "ownerId"),
+    CREATED_AT("created_at", "createdAt"),
+    UPDATED_AT("updated_at", "updatedAt"),
+    VERSION("version", "version");
+
+    private final String name;
+    private final String attribute;
+
+    RentalField(String name, String attribute) {
+        this.name = name;
+        this.attribute = attribute;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getAttribute() {
+        return attribute;
+    }
+}
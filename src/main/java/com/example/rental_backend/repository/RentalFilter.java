@@ -0,0 +1,44 @@
+package com.example.rental_backend.repository;
+
+/**
+ * Optional range criteria applied to the rentals listing.
+ * A null bound means the range is open on that side.
+ */
+public class RentalFilter {
+
+    private final Double minPrice;
+    private final Double maxPrice;
+    private final Integer minSurface;
+    private final Integer maxSurface;
+
+    /**
+     * Constructor for RentalFilter.
+     *
+     * @param minPrice   the lowest accepted price, inclusive
+     * @param maxPrice   the highest accepted price, inclusive
+     * @param minSurface the smallest accepted surface, inclusive
+     * @param maxSurface the largest accepted surface, inclusive
+     */
+    public RentalFilter(Double minPrice, Double maxPrice, Integer minSurface, Integer maxSurface) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.minSurface = minSurface;
+        this.maxSurface = maxSurface;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public Integer getMinSurface() {
+        return minSurface;
+    }
+
+    public Integer getMaxSurface() {
+        return maxSurface;
+    }
+}
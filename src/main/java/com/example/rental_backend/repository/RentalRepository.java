@@ -1,9 +1,122 @@
 package com.example.rental_backend.repository;
 
+import com.example.rental_backend.dto.RentalDTO;
+import com.example.rental_backend.model.PictureStatus;
 import com.example.rental_backend.model.Rental;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface RentalRepository extends JpaRepository<Rental, Long> {
+public interface RentalRepository extends JpaRepository<Rental, Long>, RentalRepositoryCustom {
+
+    /**
+     * Projection selecting the RentalDTO columns straight into DTOs,
+     * without hydrating or tracking Rental entities.
+     */
+    String SELECT_RENTAL_DTO = """
+        SELECT new com.example.rental_backend.dto.RentalDTO(
+            r.id, r.name, r.surface, r.price, r.picture, r.description, r.ownerId, r.createdAt, r.updatedAt, r.version,
+            r.pictureStatus, r.pictureVariants)
+        FROM Rental r
+        """;
+
+    /**
+     * Fetches a single rental as a DTO.
+     *
+     * @param id the rental ID
+     * @return an Optional containing the RentalDTO, or empty if no rental is found
+     */
+    @Query(SELECT_RENTAL_DTO + "WHERE r.id = :id")
+    Optional<RentalDTO> findDtoById(@Param("id") Long id);
+
+    /**
+     * Fetches several rentals as DTOs in a single query, in no particular order.
+     *
+     * @param ids the rental IDs
+     * @return the rentals found
+     */
+    @Query(SELECT_RENTAL_DTO + "WHERE r.id IN :ids")
+    List<RentalDTO> findDtosByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Finds which of several IDs belong to a rental, in a single query reading only the primary key.
+     *
+     * @param ids the IDs to check
+     * @return the IDs of the rentals found
+     */
+    @Query("SELECT r.id FROM Rental r WHERE r.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Fetches the rentals of an owner, newest first, each with the number of messages it received.
+     * Runs as one statement: the owner is resolved by a subquery on the unique email index, rentals
+     * are read through RENTALS(owner_id, created_at, id) and each count is an index-only lookup
+     * on MESSAGES(rental_id).
+     *
+     * @param email the owner's email address
+     * @return the owner's rentals with their message counts
+     */
+    @Query("""
+        SELECT new com.example.rental_backend.dto.RentalDTO(
+            r.id, r.name, r.surface, r.price, r.picture, r.description, r.ownerId, r.createdAt, r.updatedAt, r.version,
+            r.pictureStatus, r.pictureVariants, (SELECT COUNT(m) FROM Message m WHERE m.rental.id = r.id))
+        FROM Rental r
+        WHERE r.ownerId = (SELECT u.id FROM User u WHERE u.email = :email)
+        ORDER BY r.createdAt DESC, r.id DESC
+        """)
+    List<RentalDTO> findDtosWithMessageCountByOwnerEmail(@Param("email") String email);
+
+    /**
+     * Finds the rentals whose picture has been in a given state since before an instant.
+     *
+     * @param status the state of the picture
+     * @param before the instant the rentals were last updated before
+     * @return the IDs of the rentals found
+     */
+    @Query("SELECT r.id FROM Rental r WHERE r.pictureStatus = :status AND r.updatedAt < :before")
+    List<Long> findIdsByPictureStatusUpdatedBefore(@Param("status") PictureStatus status, @Param("before") LocalDateTime before);
+
+    /**
+     * Records the outcome of a picture upload, as a new version of the rental.
+     *
+     * @param id        the rental ID
+     * @param picture   the URL of the uploaded picture, or null if the upload failed
+     * @param variants  the URLs of the resized pictures by width, or null for none
+     * @param status    the new state of the picture
+     * @param updatedAt the update timestamp to record
+     * @return the number of rentals updated, 0 if the rental does not exist
+     */
+    @Modifying
+    @Query("""
+        UPDATE Rental r SET r.picture = :picture, r.pictureVariants = :variants, r.pictureStatus = :status,
+            r.updatedAt = :updatedAt, r.version = r.version + 1
+        WHERE r.id = :id
+        """)
+    int updatePicture(@Param("id") Long id, @Param("picture") String picture, @Param("variants") Map<Integer, String> variants,
+                      @Param("status") PictureStatus status, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Streams every rental in ID order without materializing the result list.
+     * Rows are fetched from the server in chunks of the configured JDBC fetch size
+     * (requires {@code useCursorFetch=true} on the MySQL connection URL).
+     * Must be consumed inside a transaction and closed by the caller.
+     *
+     * @return a lazily populated stream of rentals
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_RENTAL_DTO + "ORDER BY r.id")
+    Stream<RentalDTO> streamAll();
 }
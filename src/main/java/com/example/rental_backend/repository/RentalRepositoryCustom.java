@@ -0,0 +1,78 @@
+package com.example.rental_backend.repository;
+
+import com.example.rental_backend.dto.RentalDTO;
+
+import jakarta.persistence.Tuple;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Custom queries of RentalRepository that are built dynamically.
+ */
+public interface RentalRepositoryCustom {
+
+    /**
+     * Alias of the rental ID in the tuples returned by the sparse page query.
+     */
+    String KEY_ID = "keyId";
+
+    /**
+     * Alias of the sort attribute value in the tuples returned by the sparse page query.
+     */
+    String KEY_VALUE = "keyValue";
+
+    /**
+     * Fetches one page of rentals matching the filter, ordered by the given keyset.
+     * Rentals without a value for the sort attribute come last, ordered by ID in the same direction.
+     *
+     * @param filter     the range criteria
+     * @param sort       the sort order
+     * @param afterValue the sort attribute value of the last rental already returned, or null for the first page
+     *                   or if that rental has none
+     * @param afterId    the ID of the last rental already returned, or null for the first page
+     * @param limit      the maximum number of rentals to return
+     * @return the matching rentals
+     */
+    List<RentalDTO> findPage(RentalFilter filter, RentalSort sort, Object afterValue, Long afterId, int limit);
+
+    /**
+     * Fetches one page of rentals like {@link #findPage(RentalFilter, RentalSort, Object, Long, int)},
+     * selecting only the requested columns. Each tuple also holds the keyset position
+     * under {@link #KEY_ID} and {@link #KEY_VALUE}.
+     *
+     * @param filter     the range criteria
+     * @param sort       the sort order
+     * @param afterValue the sort attribute value of the last rental already returned, or null for the first page
+     *                   or if that rental has none
+     * @param afterId    the ID of the last rental already returned, or null for the first page
+     * @param limit      the maximum number of rentals to return
+     * @param fields     the columns to select
+     * @return the matching rows
+     */
+    List<Tuple> findPage(RentalFilter filter, RentalSort sort, Object afterValue, Long afterId, int limit,
+                         List<RentalField> fields);
+
+    /**
+     * Fetches only the requested columns of a rental.
+     *
+     * @param id     the rental ID
+     * @param fields the columns to select
+     * @return an Optional containing the row, or empty if no rental is found
+     */
+    Optional<Tuple> findFieldsById(Long id, List<RentalField> fields);
+
+    /**
+     * Updates only the given columns of a rental, in a single UPDATE guarded by its version.
+     * The rental is not read first; the version is incremented and updated_at set in the same statement.
+     *
+     * @param id              the rental ID
+     * @param expectedVersion the version the changes were made against
+     * @param values          the new value of each changed column
+     * @param updatedAt       the new update timestamp
+     * @return the number of rows updated: 0 if the rental does not exist or its version has changed
+     */
+    int updateFields(Long id, long expectedVersion, Map<RentalField, Object> values, LocalDateTime updatedAt);
+}
@@ -0,0 +1,134 @@
+package com.example.rental_backend.repository;
+
+import com.example.rental_backend.dto.RentalDTO;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Implementation of the dynamic rental queries.
+ * Every condition is a range on an indexed column, and the keyset condition is written
+ * so that MySQL can seek directly into the (attribute, id) index.
+ * Rentals without a value for the sort attribute come last, in either direction: once the rentals
+ * with a value run out, a page is filled from the NULL entries of the same index, ordered by ID.
+ */
+class RentalRepositoryImpl implements RentalRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<RentalDTO> findPage(RentalFilter filter, RentalSort sort, Object afterValue, Long afterId, int limit) {
+        return findPage(RentalRepository.SELECT_RENTAL_DTO, RentalDTO.class, filter, sort, afterValue, afterId, limit);
+    }
+
+    @Override
+    public List<Tuple> findPage(RentalFilter filter, RentalSort sort, Object afterValue, Long afterId, int limit,
+                                List<RentalField> fields) {
+        String select = "SELECT r.id AS " + KEY_ID + ", r." + sort.getAttribute() + " AS " + KEY_VALUE + ", "
+            + FieldProjections.selectList("r", fields) + " FROM Rental r ";
+        return findPage(select, Tuple.class, filter, sort, afterValue, afterId, limit);
+    }
+
+    @Override
+    public Optional<Tuple> findFieldsById(Long id, List<RentalField> fields) {
+        String jpql = "SELECT " + FieldProjections.selectList("r", fields) + " FROM Rental r WHERE r.id = :id";
+        return entityManager.createQuery(jpql, Tuple.class)
+            .setParameter("id", id)
+            .getResultStream()
+            .findFirst();
+    }
+
+    @Override
+    public int updateFields(Long id, long expectedVersion, Map<RentalField, Object> values, LocalDateTime updatedAt) {
+        StringBuilder jpql = new StringBuilder("UPDATE Rental r SET ");
+        for (RentalField field : values.keySet()) {
+            jpql.append("r.").append(field.getAttribute()).append(" = :").append(field.getAttribute()).append(", ");
+        }
+        jpql.append("r.updatedAt = :updatedAt, r.version = r.version + 1 WHERE r.id = :id AND r.version = :version");
+
+        Query query = entityManager.createQuery(jpql.toString());
+        values.forEach((field, value) -> query.setParameter(field.getAttribute(), value));
+        return query
+            .setParameter("updatedAt", updatedAt)
+            .setParameter("id", id)
+            .setParameter("version", expectedVersion)
+            .executeUpdate();
+    }
+
+    private <T> List<T> findPage(String select, Class<T> resultType, RentalFilter filter, RentalSort sort,
+                                 Object afterValue, Long afterId, int limit) {
+        List<T> page = new ArrayList<>();
+        // A cursor without a value is already past the rentals that have one
+        if (afterId == null || afterValue != null) {
+            page.addAll(createPageQuery(select, resultType, filter, sort, false, afterValue, afterId)
+                .setMaxResults(limit)
+                .getResultList());
+        }
+        if (page.size() < limit) {
+            page.addAll(createPageQuery(select, resultType, filter, sort, true, null, afterValue == null ? afterId : null)
+                .setMaxResults(limit - page.size())
+                .getResultList());
+        }
+        return page;
+    }
+
+    private <T> TypedQuery<T> createPageQuery(String select, Class<T> resultType, RentalFilter filter, RentalSort sort,
+                                              boolean withoutValue, Object afterValue, Long afterId) {
+        String attribute = "r." + sort.getAttribute();
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+
+        // Rentals with and without a sort value are paged separately, each on its own part of the index
+        conditions.add(attribute + (withoutValue ? " IS NULL" : " IS NOT NULL"));
+
+        if (filter.getMinPrice() != null) {
+            conditions.add("r.price >= :minPrice");
+            parameters.put("minPrice", filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            conditions.add("r.price <= :maxPrice");
+            parameters.put("maxPrice", filter.getMaxPrice());
+        }
+        if (filter.getMinSurface() != null) {
+            conditions.add("r.surface >= :minSurface");
+            parameters.put("minSurface", filter.getMinSurface());
+        }
+        if (filter.getMaxSurface() != null) {
+            conditions.add("r.surface <= :maxSurface");
+            parameters.put("maxSurface", filter.getMaxSurface());
+        }
+
+        String comparison = sort.isDescending() ? "<" : ">";
+        if (withoutValue && afterId != null) {
+            // Without a value, the ID alone positions the rental
+            conditions.add("r.id " + comparison + " :afterId");
+            parameters.put("afterId", afterId);
+        } else if (afterValue != null && afterId != null) {
+            // (attribute, id) strictly after the cursor, with a leading range the index can seek on
+            conditions.add(attribute + " " + comparison + "= :afterValue AND ("
+                + attribute + " " + comparison + " :afterValue OR r.id " + comparison + " :afterId)");
+            parameters.put("afterValue", afterValue);
+            parameters.put("afterId", afterId);
+        }
+
+        String direction = sort.isDescending() ? " DESC" : " ASC";
+        String jpql = select
+            + "WHERE " + String.join(" AND ", conditions)
+            + " ORDER BY " + (withoutValue ? "" : attribute + direction + ", ") + "r.id" + direction;
+
+        TypedQuery<T> query = entityManager.createQuery(jpql, resultType);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+}
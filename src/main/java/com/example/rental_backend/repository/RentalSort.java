@@ -0,0 +1,71 @@
+package com.example.rental_backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * Sort orders supported by the rentals listing.
+ * Each order is a keyset on (attribute, id), served by the matching composite index on RENTALS.
+ */
+public enum RentalSort {
+
+    NEWEST("-created_at", "createdAt", true, LocalDateTime::parse),
+    OLDEST("created_at", "createdAt", false, LocalDateTime::parse),
+    PRICE_ASC("price", "price", false, Double::valueOf),
+    PRICE_DESC("-price", "price", true, Double::valueOf),
+    SURFACE_ASC("surface", "surface", false, Integer::valueOf),
+    SURFACE_DESC("-surface", "surface", true, Integer::valueOf);
+
+    private final String parameter; // Value of the "sort" query parameter
+    private final String attribute; // Rental attribute the keyset is built on
+    private final boolean descending;
+    private final Function<String, Object> parser; // Parses a cursor value back to the attribute type
+
+    RentalSort(String parameter, String attribute, boolean descending, Function<String, Object> parser) {
+        this.parameter = parameter;
+        this.attribute = attribute;
+        this.descending = descending;
+        this.parser = parser;
+    }
+
+    /**
+     * Resolves a sort order from the "sort" query parameter, e.g. "price" or "-price".
+     *
+     * @param parameter the requested sort, or null for the default (newest first)
+     * @return the matching sort order
+     * @throws IllegalArgumentException if the sort is not supported
+     */
+    public static RentalSort fromParameter(String parameter) {
+        if (parameter == null || parameter.isEmpty()) {
+            return NEWEST;
+        }
+        for (RentalSort sort : values()) {
+            if (sort.parameter.equals(parameter)) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sort: " + parameter);
+    }
+
+    /**
+     * Parses the keyset value stored in a cursor.
+     *
+     * @param value the string form of the attribute value
+     * @return the attribute value
+     */
+    public Object parseValue(String value) {
+        return parser.apply(value);
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+}
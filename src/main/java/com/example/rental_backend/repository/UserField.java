@@ -0,0 +1,32 @@
+package com.example.rental_backend.repository;
+
+/**
+ * User fields that can be requested individually, named as in UserDTO's JSON.
+ * The password hash is deliberately not selectable.
+ */
+public enum UserField implements ProjectedField {
+
+    ID("id", "id"),
+    EMAIL("email", "email"),
+    NAME("name", "name"),
+    CREATED_AT("created_at", "createdAt"),
+    UPDATED_AT("updated_at", "updatedAt");
+
+    private final String name;
+    private final String attribute;
+
+    UserField(String name, String attribute) {
+        this.name = name;
+        this.attribute = attribute;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getAttribute() {
+        return attribute;
+    }
+}
@@ -1,9 +1,15 @@
 package com.example.rental_backend.repository;
 
+import com.example.rental_backend.dto.UserDTO;
 import com.example.rental_backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -11,7 +17,16 @@ import java.util.Optional;
  * Extends JpaRepository to provide CRUD and custom query methods.
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
+
+    /**
+     * Projection selecting the UserDTO columns straight into DTOs.
+     * The password hash is never read on these paths.
+     */
+    String SELECT_USER_DTO = """
+        SELECT new com.example.rental_backend.dto.UserDTO(u.id, u.name, u.email, u.createdAt, u.updatedAt)
+        FROM User u
+        """;
 
     /**
      * Finds a user by their email address.
@@ -19,4 +34,44 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return an Optional containing the found User, or empty if no user is found
      */
     Optional<User> findByEmail(String email);
+
+    /**
+     * Finds a user's public details by their ID.
+     * @param id the ID of the user
+     * @return an Optional containing the UserDTO, or empty if no user is found
+     */
+    @Query(SELECT_USER_DTO + "WHERE u.id = :id")
+    Optional<UserDTO> findDtoById(@Param("id") Long id);
+
+    /**
+     * Finds a user's public details by their email address.
+     * @param email the email address to search for
+     * @return an Optional containing the UserDTO, or empty if no user is found
+     */
+    @Query(SELECT_USER_DTO + "WHERE u.email = :email")
+    Optional<UserDTO> findDtoByEmail(@Param("email") String email);
+
+    /**
+     * Finds the public details of several users in a single query, in no particular order.
+     * @param ids the IDs of the users
+     * @return the users found
+     */
+    @Query(SELECT_USER_DTO + "WHERE u.id IN :ids")
+    List<UserDTO> findDtosByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Fetches only the update timestamp of a user, to answer conditional requests without loading it.
+     * @param id the ID of the user
+     * @return an Optional containing the update timestamp, or empty if no user is found
+     */
+    @Query("SELECT u.updatedAt FROM User u WHERE u.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("id") Long id);
+
+    /**
+     * Finds which of several IDs belong to a user, in a single query reading only the primary key.
+     * @param ids the IDs to check
+     * @return the IDs of the users found
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
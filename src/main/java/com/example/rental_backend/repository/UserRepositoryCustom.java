@@ -0,0 +1,21 @@
+package com.example.rental_backend.repository;
+
+import jakarta.persistence.Tuple;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Custom queries of UserRepository that are built dynamically.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Fetches only the requested columns of a user.
+     *
+     * @param id     the ID of the user
+     * @param fields the columns to select
+     * @return an Optional containing the row, or empty if no user is found
+     */
+    Optional<Tuple> findFieldsById(Long id, List<UserField> fields);
+}
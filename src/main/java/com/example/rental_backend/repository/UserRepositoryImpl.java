@@ -0,0 +1,26 @@
+package com.example.rental_backend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Implementation of the dynamic user queries.
+ */
+class UserRepositoryImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Tuple> findFieldsById(Long id, List<UserField> fields) {
+        String jpql = "SELECT " + FieldProjections.selectList("u", fields) + " FROM User u WHERE u.id = :id";
+        return entityManager.createQuery(jpql, Tuple.class)
+            .setParameter("id", id)
+            .getResultStream()
+            .findFirst();
+    }
+}
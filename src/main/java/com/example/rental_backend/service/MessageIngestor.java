@@ -0,0 +1,224 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.dto.MessageDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores the messages sent by clients in batches, so the cost of a commit is shared by every message
+ * arriving at about the same time.
+ *
+ * Messages wait in a bounded queue. A single writer thread takes the first one waiting, gathers those
+ * arriving within {@code messages.ingest.max-delay} after it, up to {@code messages.ingest.batch-size},
+ * and stores them in one transaction through MessageService. Each sender gets a future completed once
+ * the batch commits. If a batch breaks a constraint of the database, its messages are stored one by one,
+ * so a faulty message does not take the others down with it; any other failure, such as the database
+ * being unreachable, fails the whole batch at once rather than retrying each message against it. When
+ * the queue is full, new messages are refused at once.
+ *
+ * Messages still waiting are lost if the process dies; they are stored before a normal shutdown completes.
+ */
+@Service
+public class MessageIngestor implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageIngestor.class);
+
+    /**
+     * A message waiting to be stored, and the sender waiting for it.
+     */
+    private record Pending(MessageDTO message, CompletableFuture<MessageDTO> stored) {
+    }
+
+    private final MessageService messageService;
+    private final int batchSize;
+    private final Duration maxDelay;
+    private final BlockingQueue<Pending> queue;
+    private final Thread writer;
+    private volatile boolean stopping;
+
+    private final Counter rejectedMessages;
+    private final DistributionSummary batchSizes;
+    private final Timer batchCommits;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param messageService the service storing each batch
+     * @param meterRegistry  the registry receiving the queue and batch metrics
+     * @param queueCapacity  the maximum number of messages waiting to be stored
+     * @param batchSize      the maximum number of messages stored per transaction
+     * @param maxDelay       how long a batch waits for more messages after its first one
+     */
+    public MessageIngestor(MessageService messageService, MeterRegistry meterRegistry,
+                           @Value("${messages.ingest.queue-capacity:10000}") int queueCapacity,
+                           @Value("${messages.ingest.batch-size:500}") int batchSize,
+                           @Value("${messages.ingest.max-delay:5ms}") Duration maxDelay) {
+        this.messageService = messageService;
+        this.batchSize = batchSize;
+        this.maxDelay = maxDelay;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("messages.ingest.queued", queue, BlockingQueue::size)
+            .description("Messages waiting to be stored")
+            .register(meterRegistry);
+        this.rejectedMessages = Counter.builder("messages.ingest.rejected")
+            .description("Messages refused because the queue was full")
+            .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("messages.ingest.batch.size")
+            .description("Messages stored per transaction")
+            .register(meterRegistry);
+        this.batchCommits = Timer.builder("messages.ingest.batch")
+            .description("Duration of the transactions storing a batch of messages")
+            .register(meterRegistry);
+
+        this.writer = Thread.ofPlatform().name("message-writer").daemon(true).start(this::write);
+    }
+
+    /**
+     * Queues a message to be stored with the next batch.
+     *
+     * @param message the message, with its content, user ID and rental ID
+     * @return a future completed with the stored message once its batch commits, or failed with an
+     *         IllegalArgumentException if the user or the rental does not exist
+     * @throws IllegalArgumentException if the content, the user ID or the rental ID is missing
+     * @throws RejectedExecutionException if too many messages are waiting already
+     */
+    public CompletableFuture<MessageDTO> submit(MessageDTO message) {
+        if (message.getMessage() == null) {
+            throw new IllegalArgumentException("Message must not be null");
+        }
+        if (message.getUserId() == null) {
+            throw new IllegalArgumentException("User ID must not be null");
+        }
+        if (message.getRentalId() == null) {
+            throw new IllegalArgumentException("Rental ID must not be null");
+        }
+
+        Pending pending = new Pending(message, new CompletableFuture<>());
+        if (stopping || !queue.offer(pending)) {
+            rejectedMessages.increment();
+            throw new RejectedExecutionException("Too many messages are waiting to be stored");
+        }
+        return pending.stored();
+    }
+
+    /**
+     * Loop of the writer thread: gathers and stores batches until shutdown, then stores what is left.
+     */
+    private void write() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (!stopping || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelay.toNanos();
+                while (batch.size() < batchSize) {
+                    // Take what is already waiting, then give late messages until the deadline
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Nothing interrupts the writer but a shutdown: store what was gathered, then drain the queue
+                stopping = true;
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    store(batch);
+                } catch (Throwable e) {
+                    // Not even an Error may end the writer: the senders are told, and the next batch goes on
+                    logger.error("Failed to store a batch of {} messages", batch.size(), e);
+                    batch.forEach(pending -> pending.stored().completeExceptionally(e));
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores a batch in one transaction and notifies its senders; falls back to one transaction per
+     * message if the batch breaks a constraint, and fails the whole batch on any other error.
+     */
+    private void store(List<Pending> batch) {
+        try {
+            storeTogether(batch);
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() == 1) {
+                logger.warn("Failed to store a message", e);
+                batch.get(0).stored().completeExceptionally(e);
+                return;
+            }
+            logger.warn("A batch of {} messages broke a constraint, storing them one by one", batch.size(), e);
+            for (Pending pending : batch) {
+                try {
+                    storeTogether(List.of(pending));
+                } catch (RuntimeException single) {
+                    logger.warn("Failed to store a message", single);
+                    pending.stored().completeExceptionally(single);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Retrying each message against a failing database would only hold the queue longer
+            logger.warn("Failed to store a batch of {} messages", batch.size(), e);
+            batch.forEach(pending -> pending.stored().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Stores messages in one transaction, then completes their futures: with the stored message, or
+     * with the reason it was skipped.
+     */
+    private void storeTogether(List<Pending> batch) {
+        List<MessageDTO> messages = batch.stream().map(Pending::message).toList();
+        List<String> rejections = new ArrayList<>(Collections.nCopies(batch.size(), (String) null));
+
+        long start = System.nanoTime();
+        List<MessageDTO> stored = messageService.sendMessages(messages, rejections::set);
+        batchCommits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+
+        // Committed: the senders may now be told
+        for (int i = 0; i < batch.size(); i++) {
+            if (stored.get(i) != null) {
+                batch.get(i).stored().complete(stored.get(i));
+            } else {
+                batch.get(i).stored().completeExceptionally(new IllegalArgumentException(rejections.get(i)));
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        stopping = true;
+        writer.join(Duration.ofSeconds(30));
+    }
+}
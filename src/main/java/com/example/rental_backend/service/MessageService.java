@@ -2,21 +2,30 @@ package com.example.rental_backend.service;
 
 import com.example.rental_backend.dto.MessageDTO;
 import com.example.rental_backend.model.Message;
-import com.example.rental_backend.model.Rental;
-import com.example.rental_backend.model.User;
 import com.example.rental_backend.repository.MessageRepository;
 import com.example.rental_backend.repository.RentalRepository;
 import com.example.rental_backend.repository.UserRepository;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service for handling message-related operations, including sending messages
  * and ensuring proper validation of associated entities (user, rental).
  */
 @Service
+@Transactional(readOnly = true) // Reads skip flushing and dirty-checking, and may be served by a replica
 public class MessageService {
 
     private final MessageRepository messageRepository;
@@ -45,39 +54,102 @@ public class MessageService {
      * @return A MessageDTO containing the details of the saved message
      * @throws IllegalArgumentException if userId or rentalId is null, or if the user/rental is not found
      */
+    @Transactional
     public MessageDTO sendMessage(String messageContent, Long userId, Long rentalId) {    
-        // Validate the inputs
-        if (userId == null) {
-            throw new IllegalArgumentException("User ID must not be null");
+        MessageDTO messageDTO = new MessageDTO();
+        messageDTO.setMessage(messageContent);
+        messageDTO.setUserId(userId);
+        messageDTO.setRentalId(rentalId);
+
+        return sendMessages(List.of(messageDTO), (index, reason) -> {
+            throw new IllegalArgumentException(reason);
+        }).get(0);
+    }
+
+    /**
+     * Sends several messages in one transaction, as a batch of inserts.
+     * The users and rentals they refer to are checked with one primary-key query each, and attached
+     * as references without being loaded. Messages failing the checks are skipped, not stored.
+     *
+     * @param messages   The messages to store
+     * @param onRejected Receives the index and the reason of each message skipped
+     * @return The stored messages, in the order given, with null in place of the skipped ones
+     */
+    @Transactional
+    public List<MessageDTO> sendMessages(List<MessageDTO> messages, BiConsumer<Integer, String> onRejected) {
+        Set<Long> userIds = existing(messages, MessageDTO::getUserId, userRepository::findExistingIds);
+        Set<Long> rentalIds = existing(messages, MessageDTO::getRentalId, rentalRepository::findExistingIds);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Message> saved = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            MessageDTO messageDTO = messages.get(i);
+            String rejection = validate(messageDTO, userIds, rentalIds);
+            if (rejection != null) {
+                onRejected.accept(i, rejection);
+                saved.add(null);
+                continue;
+            }
+
+            Message message = new Message();
+            message.setMessage(messageDTO.getMessage());
+            message.setUser(userRepository.getReferenceById(messageDTO.getUserId()));
+            message.setRental(rentalRepository.getReferenceById(messageDTO.getRentalId()));
+            message.setCreatedAt(now);
+            saved.add(message);
         }
-        if (rentalId == null) {
-            throw new IllegalArgumentException("Rental ID must not be null");
+
+        // Grouped into JDBC batches on flush, with IDs taken from the pooled sequence
+        messageRepository.saveAll(saved.stream().filter(Objects::nonNull).toList());
+
+        List<MessageDTO> sent = new ArrayList<>(saved.size());
+        for (int i = 0; i < saved.size(); i++) {
+            Message message = saved.get(i);
+            if (message == null) {
+                sent.add(null);
+                continue;
+            }
+            MessageDTO messageDTO = new MessageDTO();
+            messageDTO.setId(message.getId());
+            messageDTO.setMessage(message.getMessage());
+            messageDTO.setUserId(messages.get(i).getUserId());
+            messageDTO.setRentalId(messages.get(i).getRentalId());
+            messageDTO.setCreatedAt(message.getCreatedAt());
+            sent.add(messageDTO);
         }
-    
-        // Retrieve the user and rental entities, or throw an exception if not found
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
-        Rental rental = rentalRepository.findById(rentalId)
-            .orElseThrow(() -> new IllegalArgumentException("Rental not found with ID: " + rentalId));
-    
-        // Create a new message entity and populate it with the given data
-        Message message = new Message();
-        message.setMessage(messageContent);
-        message.setUser(user);
-        message.setRental(rental);
-        message.setCreatedAt(LocalDateTime.now());
-    
-        // Save the message to the database
-        Message savedMessage = messageRepository.save(message);
-    
-        // Convert the saved message entity into a DTO to return to the caller
-        MessageDTO messageDTO = new MessageDTO();
-        messageDTO.setId(savedMessage.getId());
-        messageDTO.setMessage(savedMessage.getMessage());
-        messageDTO.setUserId(savedMessage.getUser().getId());
-        messageDTO.setRentalId(savedMessage.getRental().getId());
-        messageDTO.setCreatedAt(savedMessage.getCreatedAt());
-    
-        return messageDTO;
+        return sent;
+    }
+
+    /**
+     * Checks a message before it is stored.
+     *
+     * @return why the message cannot be stored, or null if it can
+     */
+    private static String validate(MessageDTO message, Set<Long> userIds, Set<Long> rentalIds) {
+        if (message.getMessage() == null) {
+            return "Message must not be null";
+        }
+        if (message.getUserId() == null) {
+            return "User ID must not be null";
+        }
+        if (message.getRentalId() == null) {
+            return "Rental ID must not be null";
+        }
+        if (!userIds.contains(message.getUserId())) {
+            return "User not found with ID: " + message.getUserId();
+        }
+        if (!rentalIds.contains(message.getRentalId())) {
+            return "Rental not found with ID: " + message.getRentalId();
+        }
+        return null;
+    }
+
+    /**
+     * Finds which of the IDs referenced by the messages exist, with a single query.
+     */
+    private static Set<Long> existing(List<MessageDTO> messages, Function<MessageDTO, Long> reference,
+                                      Function<Collection<Long>, List<Long>> findExistingIds) {
+        Set<Long> ids = messages.stream().map(reference).filter(Objects::nonNull).collect(Collectors.toSet());
+        return ids.isEmpty() ? Set.of() : new HashSet<>(findExistingIds.apply(ids));
     }
 }
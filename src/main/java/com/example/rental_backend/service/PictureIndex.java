@@ -0,0 +1,113 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.dto.PictureDTO;
+import com.example.rental_backend.model.PictureBlob;
+import com.example.rental_backend.repository.PictureBlobRepository;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Index of the pictures already stored, by the SHA-256 of their content.
+ *
+ * An upload whose content is already indexed reuses the stored picture and its variants
+ * instead of being resized and sent to the storage again.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PictureIndex {
+
+    private static final Pattern SHA_256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    // Size of the read buffer used to hash a file
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final PictureBlobRepository pictureBlobRepository;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param pictureBlobRepository the repository of the stored pictures
+     */
+    public PictureIndex(PictureBlobRepository pictureBlobRepository) {
+        this.pictureBlobRepository = pictureBlobRepository;
+    }
+
+    /**
+     * Finds a stored picture by the SHA-256 of its content.
+     *
+     * @param hash the hexadecimal SHA-256, in either case
+     * @return an Optional containing the stored picture, or empty if it is unknown
+     * @throws IllegalArgumentException if the hash is not a hexadecimal SHA-256
+     */
+    public Optional<PictureDTO> find(String hash) {
+        String normalized = hash == null ? "" : hash.toLowerCase(Locale.ROOT);
+        if (!SHA_256_HEX.matcher(normalized).matches()) {
+            throw new IllegalArgumentException("The picture hash must be a hexadecimal SHA-256");
+        }
+        return pictureBlobRepository.findById(normalized)
+            .map(blob -> new PictureDTO(blob.getHash(), blob.getUrl(), blob.getVariants()));
+    }
+
+    /**
+     * Records a newly stored picture. If the same content was recorded concurrently, the first record is kept.
+     *
+     * @param hash     the lowercase hexadecimal SHA-256 of the picture
+     * @param url      the URL of the stored picture
+     * @param variants the URLs of its resized pictures by width
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // The insert runs in its own transaction, so a duplicate does not doom a caller's
+    public void record(String hash, String url, Map<Integer, String> variants) {
+        PictureBlob blob = new PictureBlob();
+        blob.setHash(hash);
+        blob.setUrl(url);
+        blob.setVariants(variants);
+        blob.setCreatedAt(LocalDateTime.now());
+        try {
+            pictureBlobRepository.saveAndFlush(blob);
+        } catch (DataIntegrityViolationException e) {
+            // Another upload of the same content recorded it first
+        }
+    }
+
+    /**
+     * Computes the SHA-256 of a file, streaming it through a fixed-size buffer.
+     * The buffer is allocated per call on the heap: hashing runs on virtual threads, which a
+     * per-thread buffer would not outlive, and a direct buffer is slow to allocate and free.
+     *
+     * @param file the file
+     * @return the lowercase hexadecimal hash
+     * @throws IOException if the file cannot be read
+     */
+    public static String hash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream input = Files.newInputStream(file)) {
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.rental_backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Produces smaller JPEG variants of an uploaded picture, so list pages can load thumbnails
+ * instead of the original image.
+ *
+ * Resizing is CPU- and memory-bound, so a semaphore bounds how many pictures are processed at
+ * the same time, whatever the number of uploads in flight. Large pictures are subsampled while
+ * they are decoded, so the decoded image stays around twice as wide as the largest variant and holds
+ * no more pixels than a square four times that width. Pictures declaring more than
+ * rentals.pictures.max-pixels are not decoded at all: a small file can announce a huge image.
+ */
+@Component
+public class PictureResizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PictureResizer.class);
+
+    // JPEG quality of the variants, a good size/quality trade-off for photos
+    private static final float JPEG_QUALITY = 0.8f;
+
+    private final PictureSpool pictureSpool;
+    private final List<Integer> widths;
+    private final long maxPixels;
+    private final Semaphore permits;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param pictureSpool         the spool the variants are written to
+     * @param widths               the widths of the variants, in pixels
+     * @param maxPixels            the largest picture decoded, in pixels
+     * @param maxConcurrentResizes the maximum number of pictures resized at the same time
+     */
+    public PictureResizer(PictureSpool pictureSpool,
+                          @Value("${rentals.pictures.variant-widths:200,480,1024}") List<Integer> widths,
+                          @Value("${rentals.pictures.max-pixels:50000000}") long maxPixels,
+                          @Value("${rentals.pictures.max-concurrent-resizes:2}") int maxConcurrentResizes) {
+        this.pictureSpool = pictureSpool;
+        this.widths = widths.stream().sorted().toList();
+        this.maxPixels = maxPixels;
+        this.permits = new Semaphore(maxConcurrentResizes);
+    }
+
+    /**
+     * Writes the variants of a picture to the spool. Variants at least as wide as the picture are skipped,
+     * and a picture that cannot be decoded, or is larger than the pixel limit, has none.
+     *
+     * @param picture the spooled picture
+     * @return the spooled variant files by width, to be released by the caller
+     * @throws InterruptedException if interrupted while waiting for a permit
+     */
+    public Map<Integer, Path> resize(Path picture) throws InterruptedException {
+        Map<Integer, Path> variants = new TreeMap<>();
+        permits.acquire();
+        try {
+            BufferedImage image = read(picture);
+            if (image == null) {
+                return variants;
+            }
+            // From the largest to the smallest, each variant scaled down from the previous one
+            for (int i = widths.size() - 1; i >= 0; i--) {
+                int width = widths.get(i);
+                if (width >= image.getWidth()) {
+                    continue;
+                }
+                image = scale(image, width);
+                Path variant = pictureSpool.create();
+                variants.put(width, variant);
+                write(image, variant);
+            }
+            return variants;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to resize the picture {}", picture, e);
+            variants.values().forEach(pictureSpool::release);
+            return new TreeMap<>();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Decodes a picture, subsampled in both directions so that it is no more than twice as wide as the
+     * largest variant, and no larger than a square four times as wide. Only the header is read before
+     * the pixel limit is checked.
+     *
+     * @param picture the picture file
+     * @return the decoded picture, or null if it is not in a readable format
+     * @throws IOException if the picture cannot be read or is larger than the pixel limit
+     */
+    private BufferedImage read(Path picture) throws IOException {
+        // A file-backed stream: ImageIO neither buffers the picture in memory nor caches it in another file
+        try (ImageInputStream input = ImageIO.createImageInputStream(picture.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("Picture of " + width + "x" + height + " pixels exceeds the limit of " + maxPixels);
+                }
+                // Narrow but very tall pictures are bounded by their area rather than their width
+                long largest = widths.get(widths.size() - 1);
+                int byWidth = (int) Math.max(1, width / (2 * largest));
+                int byArea = (int) Math.ceil(Math.sqrt((double) width * height) / (4 * largest));
+                int subsampling = Math.max(byWidth, byArea);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales a picture down to the given width, halving it first while it is more than twice as wide,
+     * which keeps bilinear filtering from skipping pixels.
+     */
+    private static BufferedImage scale(BufferedImage image, int width) {
+        while (image.getWidth() / 2 >= width) {
+            image = draw(image, image.getWidth() / 2, Math.max(1, image.getHeight() / 2));
+        }
+        return draw(image, width, Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth())));
+    }
+
+    /**
+     * Draws a picture at the given size on an opaque RGB canvas, as JPEG has no transparency.
+     */
+    private static BufferedImage draw(BufferedImage image, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * Encodes a picture as JPEG.
+     */
+    private static void write(BufferedImage image, Path file) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
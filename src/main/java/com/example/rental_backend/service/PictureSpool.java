@@ -0,0 +1,148 @@
+package com.example.rental_backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Directory keeping uploaded pictures on disk between the request that received them and their
+ * background upload to the storage.
+ *
+ * The servlet container already writes multipart parts to disk (file-size-threshold=0); spooling
+ * moves the part's file here, with a rename when both directories are on the same file system,
+ * so picture bytes are never copied into the heap.
+ *
+ * Files are created as picture-*.upload, then renamed rental-{id}.upload once their rental is stored,
+ * so a restart can find the picture of each rental still waiting for its upload.
+ */
+@Component
+public class PictureSpool {
+
+    private static final Logger logger = LoggerFactory.getLogger(PictureSpool.class);
+
+    private static final Pattern ASSIGNED = Pattern.compile("rental-(\\d+)\\.upload");
+
+    private final Path directory;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param directory the directory holding the spooled pictures, created if needed
+     * @throws IOException if the directory cannot be created
+     */
+    public PictureSpool(@Value("${rentals.pictures.spool-dir:${java.io.tmpdir}/rental-pictures}") Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Moves an uploaded picture into the spool, where it outlives the request.
+     *
+     * @param picture the uploaded picture
+     * @return the spooled file, to be released once uploaded
+     * @throws IOException if the picture cannot be written
+     */
+    public Path spool(MultipartFile picture) throws IOException {
+        Path file = create();
+        try {
+            // Use the File variant: it lets the container rename its part file instead of streaming a copy
+            picture.transferTo(file.toFile());
+        } catch (IOException | RuntimeException e) {
+            release(file);
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Creates an empty file in the spool, for a picture produced on this server.
+     *
+     * @return the new file, to be released once uploaded
+     * @throws IOException if the file cannot be created
+     */
+    public Path create() throws IOException {
+        return Files.createTempFile(directory, "picture-", ".upload");
+    }
+
+    /**
+     * Names a spooled picture after the rental it belongs to, so it can be found again after a restart.
+     *
+     * @param file     the spooled file
+     * @param rentalId the ID of the rental
+     * @return the renamed file
+     * @throws IOException if the file cannot be renamed
+     */
+    public Path assign(Path file, Long rentalId) throws IOException {
+        return Files.move(file, assigned(rentalId), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Finds the spooled picture of a rental.
+     *
+     * @param rentalId the ID of the rental
+     * @return the file assigned to the rental, or empty if there is none
+     */
+    public Optional<Path> findAssigned(Long rentalId) {
+        Path file = assigned(rentalId);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    /**
+     * Deletes the files a previous run left behind: pictures never assigned to a rental, and pictures
+     * of rentals no longer waiting for their upload. Files modified since the given instant belong to
+     * this run and are kept.
+     *
+     * @param before    the start of this run
+     * @param rentalIds the IDs of the rentals whose pictures are kept
+     * @return the number of files deleted
+     * @throws IOException if the spool cannot be listed
+     */
+    public int purge(Instant before, Set<Long> rentalIds) throws IOException {
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.upload")) {
+            for (Path file : files) {
+                Matcher assigned = ASSIGNED.matcher(file.getFileName().toString());
+                if (assigned.matches() && rentalIds.contains(Long.valueOf(assigned.group(1)))) {
+                    continue;
+                }
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(before) && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    logger.warn("Failed to delete the spooled picture {}", file, e);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes a spooled picture that is no longer needed.
+     *
+     * @param file the spooled file
+     */
+    public void release(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete the spooled picture {}", file, e);
+        }
+    }
+
+    private Path assigned(Long rentalId) {
+        return directory.resolve("rental-" + rentalId + ".upload");
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.dto.UploadDTO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resumable picture uploads, for clients on connections that may drop.
+ *
+ * The client announces the size of the picture, then sends it in chunks, each starting where the
+ * previous one ended. Chunks are appended to a file of the PictureSpool as they arrive; if a chunk is
+ * cut short, the bytes received are kept and the client resumes from the new offset. A complete
+ * upload is claimed by the rental it is attached to and queued for the storage like any other picture;
+ * it is only dropped once the rental is committed, and given back to the user if the rental is not stored.
+ *
+ * Uploads are kept in memory: an upload is tied to the instance that created it and does not survive
+ * a restart. An upload without activity for {@code rentals.uploads.expire-after} is discarded by a sweep
+ * running every {@code rentals.uploads.sweep-interval}. Each user has at most
+ * {@code rentals.uploads.max-per-owner} uploads in progress, which bounds the spool space one user can hold.
+ */
+@Service
+public class PictureUploads {
+
+    private static final Logger logger = LoggerFactory.getLogger(PictureUploads.class);
+
+    private final PictureSpool pictureSpool;
+    private final long maxLength;
+    private final Duration expireAfter;
+    private final int maxPerOwner;
+
+    // Uploads in progress, and uploads claimed by a rental whose transaction has not ended yet, by ID
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    /**
+     * An upload in progress. Its offset is the size of its file.
+     */
+    private static final class Upload {
+        final String id;
+        final String owner;
+        final long length;
+        final Path file;
+        final ReentrantLock lock = new ReentrantLock(); // Held while a chunk is written or the upload is claimed
+        volatile Instant expiresAt;
+        volatile boolean claimed; // Attached to a rental not committed yet: its file belongs to that rental
+
+        Upload(String id, String owner, long length, Path file, Instant expiresAt) {
+            this.id = id;
+            this.owner = owner;
+            this.length = length;
+            this.file = file;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param pictureSpool the spool holding the files being uploaded
+     * @param maxLength    the largest picture that can be uploaded
+     * @param expireAfter  how long an upload without activity is kept
+     * @param maxPerOwner  the maximum number of uploads in progress per user
+     */
+    public PictureUploads(PictureSpool pictureSpool,
+                          @Value("${rentals.uploads.max-length:10MB}") DataSize maxLength,
+                          @Value("${rentals.uploads.expire-after:24h}") Duration expireAfter,
+                          @Value("${rentals.uploads.max-per-owner:5}") int maxPerOwner) {
+        this.pictureSpool = pictureSpool;
+        this.maxLength = maxLength.toBytes();
+        this.expireAfter = expireAfter;
+        this.maxPerOwner = maxPerOwner;
+    }
+
+    /**
+     * Starts an upload.
+     *
+     * @param length the size of the picture in bytes
+     * @param email  the email of the user uploading
+     * @return the new upload
+     * @throws IllegalArgumentException if the size is missing or too large
+     * @throws IllegalStateException if the user already has the maximum number of uploads in progress
+     * @throws IOException if the file cannot be created
+     */
+    public UploadDTO create(Long length, String email) throws IOException {
+        if (length == null || length <= 0) {
+            throw new IllegalArgumentException("Upload-Length must give the size of the picture in bytes");
+        }
+        if (length > maxLength) {
+            throw new IllegalArgumentException("The picture must not be larger than " + maxLength + " bytes");
+        }
+        Upload upload = new Upload(UUID.randomUUID().toString(), email, length, pictureSpool.create(),
+            Instant.now().plus(expireAfter));
+        // Counted and added together, so concurrent requests of a user cannot both take the last slot
+        synchronized (this) {
+            Instant now = Instant.now();
+            long inProgress = uploads.values().stream()
+                .filter(other -> other.owner.equals(email) && !other.expiresAt.isBefore(now))
+                .count();
+            if (inProgress >= maxPerOwner) {
+                pictureSpool.release(upload.file);
+                throw new IllegalStateException("Too many uploads in progress: finish or cancel one first");
+            }
+            uploads.put(upload.id, upload);
+        }
+        return toDTO(upload, 0);
+    }
+
+    /**
+     * Finds an upload of the user.
+     *
+     * @param id    the ID of the upload
+     * @param email the email of the user
+     * @return the upload and its current offset
+     * @throws NoSuchElementException if the user has no such upload
+     * @throws IOException if the file cannot be read
+     */
+    public UploadDTO find(String id, String email) throws IOException {
+        Upload upload = owned(id, email);
+        try (FileChannel channel = FileChannel.open(upload.file, StandardOpenOption.READ)) {
+            return toDTO(upload, channel.size());
+        }
+    }
+
+    /**
+     * Appends a chunk to an upload. The chunk must start at the current offset; if it is cut short,
+     * the bytes received are kept.
+     *
+     * @param id     the ID of the upload
+     * @param offset the offset the chunk starts at
+     * @param chunk  the bytes of the chunk
+     * @param email  the email of the user
+     * @return the upload and its new offset
+     * @throws NoSuchElementException if the user has no such upload
+     * @throws IllegalStateException if the offset is not the current one, or another chunk is being written
+     * @throws IllegalArgumentException if the chunk goes past the announced size
+     * @throws IOException if the chunk cannot be read or written
+     */
+    public UploadDTO append(String id, Long offset, InputStream chunk, String email) throws IOException {
+        Upload upload = owned(id, email);
+        if (!upload.lock.tryLock()) {
+            throw new IllegalStateException("Another chunk of this upload is being sent");
+        }
+        try (FileChannel channel = FileChannel.open(upload.file, StandardOpenOption.WRITE)) {
+            long start = channel.size();
+            if (offset == null || offset != start) {
+                throw new IllegalStateException("The upload continues at offset " + start);
+            }
+            upload.expiresAt = Instant.now().plus(expireAfter);
+
+            // Copy the request body straight into the file, never holding more than a small buffer
+            ReadableByteChannel source = Channels.newChannel(chunk);
+            long position = start;
+            while (position < upload.length) {
+                long transferred = channel.transferFrom(source, position, upload.length - position);
+                if (transferred == 0) {
+                    break; // End of the chunk
+                }
+                position += transferred;
+            }
+            if (position == upload.length && chunk.read() != -1) {
+                channel.truncate(start);
+                throw new IllegalArgumentException("The chunk goes past the size of the picture");
+            }
+            return toDTO(upload, position);
+        } finally {
+            upload.lock.unlock();
+        }
+    }
+
+    /**
+     * Attaches a complete upload to a rental being created. The upload is kept, hidden from its user,
+     * until the transaction storing the rental ends: it is dropped once committed, and given back by
+     * restore if the rental is not stored.
+     *
+     * @param id    the ID of the upload
+     * @param email the email of the user
+     * @return the file of the picture, owned by the caller until the upload is dropped or restored
+     * @throws IllegalArgumentException if the user has no such upload, or it is not complete
+     * @throws IllegalStateException if a chunk is being written to the upload, or it is already attached to a rental
+     * @throws IOException if the file cannot be read
+     */
+    public Path claim(String id, String email) throws IOException {
+        Upload upload;
+        try {
+            upload = lookup(id, email);
+        } catch (NoSuchElementException e) {
+            throw new IllegalArgumentException("Unknown upload: " + id);
+        }
+        if (!upload.lock.tryLock()) {
+            throw new IllegalStateException("A chunk of this upload is still being sent");
+        }
+        try (FileChannel channel = FileChannel.open(upload.file, StandardOpenOption.READ)) {
+            if (upload.claimed) {
+                throw new IllegalStateException("The upload is already attached to a rental");
+            }
+            if (channel.size() != upload.length) {
+                throw new IllegalArgumentException("The upload is not complete: " + channel.size() + " of " + upload.length + " bytes received");
+            }
+            upload.claimed = true;
+            return upload.file;
+        } finally {
+            upload.lock.unlock();
+        }
+    }
+
+    /**
+     * Gives a claimed upload back to its user, complete, when the rental it was attached to is not
+     * stored: the user can attach it to a rental again, until it expires.
+     *
+     * @param id   the ID of the upload
+     * @param file the file of the picture, renamed or not since it was claimed
+     */
+    public void restore(String id, Path file) {
+        Upload upload = uploads.get(id);
+        if (upload == null || !upload.claimed) {
+            pictureSpool.release(file);
+            return;
+        }
+        try {
+            if (!file.equals(upload.file)) {
+                Files.move(file, upload.file, StandardCopyOption.ATOMIC_MOVE);
+            }
+            upload.expiresAt = Instant.now().plus(expireAfter);
+            upload.claimed = false;
+        } catch (IOException e) {
+            logger.warn("Failed to restore the upload {}, discarding it", id, e);
+            uploads.remove(id, upload);
+            pictureSpool.release(file);
+        }
+    }
+
+    /**
+     * Drops the upload of a rental once the transaction storing the rental has committed: its file now
+     * belongs to RentalPictureUploader.
+     *
+     * @param upload the rental and its picture
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPictureUploadCommitted(RentalPictureUpload upload) {
+        if (upload.getUploadId() != null) {
+            uploads.computeIfPresent(upload.getUploadId(), (id, claimed) -> claimed.claimed ? null : claimed);
+        }
+    }
+
+    /**
+     * Gives the upload of a rental back to its user if the transaction storing the rental rolls back.
+     *
+     * @param upload the rental and its picture
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onPictureUploadRolledBack(RentalPictureUpload upload) {
+        if (upload.getUploadId() != null && upload.getFile() instanceof Path spooled) {
+            restore(upload.getUploadId(), spooled);
+        }
+    }
+
+    /**
+     * Abandons an upload and deletes what was received.
+     *
+     * @param id    the ID of the upload
+     * @param email the email of the user
+     * @throws NoSuchElementException if the user has no such upload
+     */
+    public void cancel(String id, String email) {
+        Upload upload = owned(id, email);
+        if (uploads.remove(upload.id, upload)) {
+            pictureSpool.release(upload.file);
+        }
+    }
+
+    /**
+     * Finds an upload of the user that can still receive chunks: not expired, nor claimed.
+     */
+    private Upload owned(String id, String email) {
+        Upload upload = lookup(id, email);
+        if (upload.claimed) {
+            throw new NoSuchElementException("Upload not found");
+        }
+        return upload;
+    }
+
+    private Upload lookup(String id, String email) {
+        Upload upload = id == null ? null : uploads.get(id);
+        if (upload == null || !upload.owner.equals(email) || upload.expiresAt.isBefore(Instant.now())) {
+            throw new NoSuchElementException("Upload not found");
+        }
+        return upload;
+    }
+
+    /**
+     * Discards the uploads that expired and deletes their files, unless a chunk is being written to them
+     * or a rental claimed them.
+     */
+    @Scheduled(fixedDelayString = "${rentals.uploads.sweep-interval:PT1M}")
+    public void discardExpired() {
+        Instant now = Instant.now();
+        for (Upload upload : uploads.values()) {
+            if (upload.expiresAt.isBefore(now) && upload.lock.tryLock()) {
+                try {
+                    // Checked under the lock, which claim holds while marking the upload
+                    if (!upload.claimed && uploads.remove(upload.id, upload)) {
+                        pictureSpool.release(upload.file);
+                    }
+                } finally {
+                    upload.lock.unlock();
+                }
+            }
+        }
+    }
+
+    private static UploadDTO toDTO(Upload upload, long offset) {
+        return new UploadDTO(upload.id, offset, upload.length, LocalDateTime.ofInstant(upload.expiresAt, ZoneId.systemDefault()));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.dto.RentalDTO;
+
+/**
+ * Event published when a rental is created or updated in place.
+ * RentalService evicts the cached copies of the rental once the transaction that wrote it has committed,
+ * and refreshes its search entry then if its text was written.
+ */
+public class RentalChanged {
+
+    private final Long rentalId; // ID of the rental updated
+    private final RentalDTO searchable; // Rental as written, when its search entry must be refreshed
+
+    /**
+     * Constructor for a change that leaves the text of the rental as it was.
+     * @param rentalId the ID of the rental
+     */
+    public RentalChanged(Long rentalId) {
+        this(rentalId, null);
+    }
+
+    /**
+     * Constructor for a change to the text of the rental.
+     * @param rentalId   the ID of the rental
+     * @param searchable the rental as written by the transaction, or null to leave its search entry as it is
+     */
+    public RentalChanged(Long rentalId, RentalDTO searchable) {
+        this.rentalId = rentalId;
+        this.searchable = searchable;
+    }
+
+    /**
+     * Gets the ID of the rental updated.
+     * @return the rental ID
+     */
+    public Long getRentalId() {
+        return rentalId;
+    }
+
+    /**
+     * Gets the rental to index once committed.
+     * @return the rental as written, or null if its search entry is unchanged
+     */
+    public RentalDTO getSearchable() {
+        return searchable;
+    }
+}
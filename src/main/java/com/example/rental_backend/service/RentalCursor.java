@@ -0,0 +1,79 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.repository.RentalSort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for paginating rentals on (sort attribute, id).
+ * The cursor points at the last rental of a page; the next page starts strictly after it.
+ * It records the sort order it was issued for, so it cannot be replayed against another order.
+ * A rental without a value for the sort attribute is recorded with an empty value.
+ */
+public final class RentalCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final RentalSort sort; // Sort order the cursor was issued for
+    private final Object value; // Sort attribute value of the last rental returned, null if it has none
+    private final Long id; // ID of the last rental returned, used as a tie-breaker
+
+    /**
+     * Constructor for RentalCursor.
+     *
+     * @param sort  the sort order of the listing
+     * @param value the sort attribute value of the last rental of the page, or null if it has none
+     * @param id    the ID of the last rental of the page
+     */
+    public RentalCursor(RentalSort sort, Object value, Long id) {
+        this.sort = sort;
+        this.value = value;
+        this.id = id;
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     *
+     * @param token the opaque cursor sent by the client
+     * @param sort  the sort order of the current request
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the token is malformed or was issued for another sort order
+     */
+    public static RentalCursor decode(String token, RentalSort sort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 3);
+            if (parts.length != 3 || !parts[0].equals(sort.getParameter())) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Object value = parts[1].isEmpty() ? null : sort.parseValue(parts[1]);
+            return new RentalCursor(sort, value, Long.valueOf(parts[2]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Encodes this cursor as an opaque, URL-safe token.
+     *
+     * @return the encoded cursor
+     */
+    public String encode() {
+        String raw = sort.getParameter() + SEPARATOR + (value == null ? "" : value) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public RentalSort getSort() {
+        return sort;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
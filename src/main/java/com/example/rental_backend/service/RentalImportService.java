@@ -0,0 +1,143 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.dto.RentalDTO;
+import com.example.rental_backend.dto.RentalImportDTO;
+import com.example.rental_backend.dto.RentalImportProgressDTO;
+import com.example.rental_backend.model.User;
+import com.example.rental_backend.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Service importing many rentals of one owner from a JSON array or a CSV document.
+ *
+ * Rows are read as they arrive and stored in batches, each in its own transaction, so neither
+ * the input nor the persistence context grows with the size of the import. Progress is reported
+ * after every batch; the import stops at the first rejected batch, keeping the batches before it.
+ */
+@Service
+public class RentalImportService {
+
+    private final RentalService rentalService;
+    private final RentalSearchIndex searchIndex;
+    private final UserRepository userRepository;
+    private final ObjectReader jsonReader;
+    private final ObjectReader csvReader;
+    private final int batchSize;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param rentalService   the service storing each batch
+     * @param searchIndex     the index the imported rentals are added to
+     * @param userRepository  the repository resolving the owner
+     * @param objectMapper    the mapper reading JSON imports
+     * @param batchSize       the number of rentals stored per transaction
+     */
+    public RentalImportService(RentalService rentalService, RentalSearchIndex searchIndex,
+                               UserRepository userRepository, ObjectMapper objectMapper,
+                               @Value("${rentals.import.batch-size:500}") int batchSize) {
+        this.rentalService = rentalService;
+        this.searchIndex = searchIndex;
+        this.userRepository = userRepository;
+        this.jsonReader = objectMapper.readerFor(RentalImportDTO.class);
+        // CSV columns are matched by the names in the header row
+        this.csvReader = new CsvMapper().readerFor(RentalImportDTO.class).with(CsvSchema.emptySchema().withHeader());
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Import the rentals read from the input, reporting progress after each batch.
+     *
+     * @param input    the JSON array or CSV document to read
+     * @param csv      true if the input is CSV with a header row, false if it is a JSON array
+     * @param email    the email of the owner of the rentals
+     * @param progress the callback receiving a progress line per batch, then a final one
+     * @return the number of rentals imported
+     * @throws IOException if the input cannot be read
+     */
+    public long importRentals(InputStream input, boolean csv, String email,
+                              Consumer<RentalImportProgressDTO> progress) throws IOException {
+        Long ownerId = userRepository.findByEmail(email).map(User::getId).orElse(null);
+        if (ownerId == null) {
+            progress.accept(new RentalImportProgressDTO(null, 0, "Owner not found with email: " + email, true));
+            return 0;
+        }
+
+        long imported = 0;
+        int batchNumber = 1;
+        List<RentalImportDTO> batch = new ArrayList<>(batchSize);
+        try (MappingIterator<RentalImportDTO> rows = (csv ? csvReader : jsonReader).readValues(input)) {
+            while (true) {
+                boolean more;
+                try {
+                    more = rows.hasNextValue();
+                    if (more) {
+                        batch.add(rows.nextValue());
+                    }
+                } catch (JsonProcessingException e) {
+                    progress.accept(new RentalImportProgressDTO(batchNumber, imported, "Malformed row: " + e.getOriginalMessage(), true));
+                    return imported;
+                }
+                if (batch.size() == batchSize || (!more && !batch.isEmpty())) {
+                    String error = store(batch, batchNumber, ownerId);
+                    if (error != null) {
+                        progress.accept(new RentalImportProgressDTO(batchNumber, imported, error, true));
+                        return imported;
+                    }
+                    imported += batch.size();
+                    progress.accept(new RentalImportProgressDTO(batchNumber, imported, null, null));
+                    batch.clear();
+                    batchNumber++;
+                }
+                if (!more) {
+                    break;
+                }
+            }
+        }
+        progress.accept(new RentalImportProgressDTO(null, imported, null, true));
+        return imported;
+    }
+
+    /**
+     * Validate and store one batch, then index its rentals once it is committed.
+     * Their pictures are queued for upload by RentalService when the batch commits.
+     *
+     * @param batch       the rows of the batch
+     * @param batchNumber the number of the batch, starting at 1
+     * @param ownerId     the ID of the owner
+     * @return why the batch was rejected, or null if it was stored
+     */
+    private String store(List<RentalImportDTO> batch, int batchNumber, Long ownerId) {
+        for (int i = 0; i < batch.size(); i++) {
+            String name = batch.get(i).getName();
+            if (name == null || name.isBlank()) {
+                return "Row " + ((long) (batchNumber - 1) * batchSize + i + 1) + ": the name is required";
+            }
+        }
+
+        List<RentalDTO> created;
+        try {
+            created = rentalService.createRentals(batch, ownerId);
+        } catch (DataAccessException e) {
+            return "The batch could not be stored: " + e.getMostSpecificCause().getMessage();
+        }
+
+        created.forEach(searchIndex::index);
+        return null;
+    }
+}
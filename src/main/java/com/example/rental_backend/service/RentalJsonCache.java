@@ -0,0 +1,150 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.dto.RentalDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Cache of rentals already serialized to JSON, keyed by rental ID and validated against the rental's version.
+ *
+ * Responses are assembled by concatenating the cached fragments, so Jackson only runs for rentals
+ * that changed since they were last sent. A fragment whose version no longer matches the rental
+ * is treated as a miss, and RentalService evicts fragments whenever it changes a rental. The version
+ * is used rather than updated_at, which MySQL stores to the second: two updates within the same
+ * second would otherwise share a fragment.
+ */
+@Component
+public class RentalJsonCache {
+
+    private static final byte[] PAGE_START = "{\"rentals\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PAGE_NEXT = "],\"next\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, Fragment> fragments;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param objectMapper  the mapper producing the same JSON as regular responses
+     * @param meterRegistry the registry receiving the cache hit/miss/eviction metrics
+     * @param maxBytes      the total size of cached JSON above which fragments are evicted
+     */
+    public RentalJsonCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                           @Value("${rentals.json-cache.max-bytes:67108864}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.fragments = Caffeine.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((Long id, Fragment fragment) -> fragment.json.length)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, fragments, "rentalsJson");
+    }
+
+    /**
+     * Gets the JSON of a rental, serializing and caching it if needed.
+     *
+     * @param rental the rental
+     * @return the UTF-8 JSON of the rental
+     */
+    public byte[] toJson(RentalDTO rental) {
+        Fragment cached = fragments.getIfPresent(rental.getId());
+        if (cached != null && Objects.equals(cached.version, rental.getVersion())) {
+            return cached.json;
+        }
+        byte[] json = serialize(rental);
+        fragments.put(rental.getId(), new Fragment(rental.getVersion(), json));
+        return json;
+    }
+
+    /**
+     * Gets the JSON of a rental from the cache if present, without caching it otherwise.
+     * Used by full exports so they do not flush the fragments of frequently requested rentals.
+     *
+     * @param rental the rental
+     * @return the UTF-8 JSON of the rental
+     */
+    public byte[] peekJson(RentalDTO rental) {
+        Fragment cached = fragments.getIfPresent(rental.getId());
+        if (cached != null && Objects.equals(cached.version, rental.getVersion())) {
+            return cached.json;
+        }
+        return serialize(rental);
+    }
+
+    /**
+     * Assembles the JSON of a page of rentals, in the same shape as RentalsWrapperDTO.
+     *
+     * @param rentals the rentals of the page
+     * @param next    the cursor of the next page, or null
+     * @return the UTF-8 JSON of the page
+     */
+    public byte[] toJson(List<RentalDTO> rentals, String next) {
+        ByteArrayOutputStream page = new ByteArrayOutputStream(1024 * (rentals.size() + 1));
+        try {
+            writePage(rentals, next, page);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return page.toByteArray();
+    }
+
+    /**
+     * Removes the cached JSON of a rental that has just changed.
+     *
+     * @param id the rental ID
+     */
+    public void evict(Long id) {
+        fragments.invalidate(id);
+    }
+
+    private void writePage(List<RentalDTO> rentals, String next, OutputStream out) throws IOException {
+        out.write(PAGE_START);
+        for (int i = 0; i < rentals.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(toJson(rentals.get(i)));
+        }
+        out.write(PAGE_NEXT);
+        out.write(next == null ? NULL : objectMapper.writeValueAsBytes(next));
+        out.write('}');
+    }
+
+    private byte[] serialize(RentalDTO rental) {
+        try {
+            return objectMapper.writeValueAsBytes(rental);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize rental " + rental.getId(), e);
+        }
+    }
+
+    /**
+     * Serialized JSON of one version of a rental.
+     */
+    private static final class Fragment {
+        private final Long version;
+        private final byte[] json;
+
+        Fragment(Long version, byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.rental_backend.service;
+
+/**
+ * Event published when a stored rental needs its picture uploaded.
+ * RentalPictureUploader handles it once the transaction that stored the rental has committed.
+ */
+public class RentalPictureUpload {
+
+    private final Long rentalId; // ID of the rental the picture belongs to
+
+    private final Object file; // The picture: its spooled file (a Path), or the URL the storage fetches it from
+
+    private final String uploadId; // ID of the resumable upload the spooled file comes from, if any
+
+    /**
+     * Constructor for initializing the event.
+     * @param rentalId the ID of the rental
+     * @param file the spooled file of the picture, or the URL to fetch it from
+     */
+    public RentalPictureUpload(Long rentalId, Object file) {
+        this(rentalId, file, null);
+    }
+
+    /**
+     * Constructor for a picture sent through a resumable upload.
+     * @param rentalId the ID of the rental
+     * @param file the spooled file of the picture
+     * @param uploadId the ID of the upload, or null if the picture was not sent through one
+     */
+    public RentalPictureUpload(Long rentalId, Object file, String uploadId) {
+        this.rentalId = rentalId;
+        this.file = file;
+        this.uploadId = uploadId;
+    }
+
+    /**
+     * Gets the ID of the rental the picture belongs to.
+     * @return the rental ID
+     */
+    public Long getRentalId() {
+        return rentalId;
+    }
+
+    /**
+     * Gets the picture to upload.
+     * @return the spooled file of the picture (a Path), or the URL to fetch it from
+     */
+    public Object getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the resumable upload the picture was sent through.
+     * @return the upload ID, or null if the picture was not sent through one
+     */
+    public String getUploadId() {
+        return uploadId;
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.dto.PictureDTO;
+import com.example.rental_backend.dto.RentalDTO;
+import com.example.rental_backend.model.PictureStatus;
+import com.example.rental_backend.storage.ImageStorage;
+import com.example.rental_backend.storage.StorageBulkhead;
+import com.example.rental_backend.storage.StorageUnavailableException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Uploads rental pictures in the background, so creating a rental never waits for the storage.
+ *
+ * Each upload runs on its own virtual thread once the rental is committed, except the pictures of
+ * imported rentals: they come by the thousand, so a few workers fetch them in turn while the others
+ * wait in a queue, rather than all of them crowding the bulkhead and running out of retries. Every call
+ * to the ImageStorage goes through the StorageBulkhead, which bounds and times them, and is retried with
+ * a backoff while the bulkhead refuses it. Spooled pictures are hashed first: content already in
+ * the PictureIndex is reused as is; otherwise the picture is resized by PictureResizer and its
+ * variants uploaded with it. When the upload ends, the rental's picture, variants and
+ * PENDING status are replaced in one UPDATE, and the callers waiting on it are notified.
+ * Uploads interrupted by a restart are resumed from the spool when the application starts again.
+ */
+@Component
+public class RentalPictureUploader implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RentalPictureUploader.class);
+
+    // How often a PENDING rental whose upload does not run here is read again
+    private static final Duration POLL_INTERVAL = Duration.ofSeconds(1);
+
+    // Attempts of a storage call the bulkhead refuses, waiting twice as long after each (and at least its Retry-After)
+    private static final int MAX_ATTEMPTS = 6;
+    private static final Duration FIRST_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(1);
+
+    private final ImageStorage imageStorage;
+    private final StorageBulkhead storageBulkhead;
+    private final RentalService rentalService;
+    private final PictureSpool pictureSpool;
+    private final PictureResizer pictureResizer;
+    private final PictureIndex pictureIndex;
+    private final ExecutorService executor;
+    private final ExecutorService importWorkers;
+
+    // Uploads not finished yet, by rental ID; completed with the updated rental
+    private final Map<Long, CompletableFuture<RentalDTO>> uploads = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param imageStorage         the storage keeping the pictures
+     * @param storageBulkhead      the bulkhead isolating the calls to the storage
+     * @param rentalService        the service recording the outcome of each upload
+     * @param pictureSpool         the spool the uploaded files are released from
+     * @param pictureResizer       the resizer producing the variants of uploaded files
+     * @param pictureIndex         the index of the pictures already stored, by content
+     * @param importWorkers        the number of pictures of imported rentals fetched at the same time
+     */
+    public RentalPictureUploader(ImageStorage imageStorage, StorageBulkhead storageBulkhead, RentalService rentalService,
+                                 PictureSpool pictureSpool, PictureResizer pictureResizer, PictureIndex pictureIndex,
+                                 @Value("${app.storage.import-workers:4}") int importWorkers) {
+        this.imageStorage = imageStorage;
+        this.storageBulkhead = storageBulkhead;
+        this.rentalService = rentalService;
+        this.pictureSpool = pictureSpool;
+        this.pictureResizer = pictureResizer;
+        this.pictureIndex = pictureIndex;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("rental-picture-", 0).factory());
+        this.importWorkers = Executors.newFixedThreadPool(importWorkers, Thread.ofVirtual().name("rental-import-picture-", 0).factory());
+    }
+
+    /**
+     * Starts the upload of a rental's picture once the transaction that stored the rental commits,
+     * or right away when published outside of a transaction.
+     *
+     * @param upload the rental and its picture
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPictureUpload(RentalPictureUpload upload) {
+        start(upload.getRentalId(), upload.getFile());
+    }
+
+    /**
+     * Resumes the uploads a previous run left unfinished, once the application has started: rentals
+     * still PENDING whose picture is in the spool are queued again, the others are marked FAILED since
+     * their picture is lost. Spooled files no rental waits for are then deleted.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUploads() {
+        Instant startedAt = Instant.ofEpochMilli(ManagementFactory.getRuntimeMXBean().getStartTime());
+        Set<Long> resumed = new HashSet<>();
+        int failed = 0;
+        try {
+            for (Long rentalId : rentalService.getPendingPictures(LocalDateTime.ofInstant(startedAt, ZoneId.systemDefault()))) {
+                Optional<Path> spooled = pictureSpool.findAssigned(rentalId);
+                if (spooled.isPresent()) {
+                    resumed.add(rentalId);
+                    start(rentalId, spooled.get());
+                } else {
+                    rentalService.setPicture(rentalId, null, null, PictureStatus.FAILED);
+                    failed++;
+                }
+            }
+            int deleted = pictureSpool.purge(startedAt, resumed);
+            if (!resumed.isEmpty() || failed > 0 || deleted > 0) {
+                logger.info("Resumed {} picture uploads, marked {} as failed, deleted {} orphaned spooled files",
+                    resumed.size(), failed, deleted);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to resume the picture uploads of the previous run", e);
+        }
+    }
+
+    /**
+     * Runs an upload, registered until it ends: a spooled picture on its own virtual thread, a picture URL
+     * on the next free import worker.
+     *
+     * @param rentalId the ID of the rental
+     * @param file     the spooled file of the picture, or the URL to fetch it from
+     */
+    private void start(Long rentalId, Object file) {
+        CompletableFuture<RentalDTO> done = new CompletableFuture<>();
+        uploads.put(rentalId, done);
+        (file instanceof Path ? executor : importWorkers).execute(() -> {
+            RentalDTO rental = upload(rentalId, file);
+            // Remove before completing: later callers read the final state from the database instead
+            uploads.remove(rentalId, done);
+            done.complete(rental);
+        });
+    }
+
+    /**
+     * Releases the spooled picture of a rental whose transaction was rolled back, unless it came from a
+     * resumable upload, which PictureUploads gives back to the user.
+     *
+     * @param upload the rental and its picture
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onPictureUploadRolledBack(RentalPictureUpload upload) {
+        if (upload.getFile() instanceof Path spooled && upload.getUploadId() == null) {
+            pictureSpool.release(spooled);
+        }
+    }
+
+    /**
+     * Finds the upload still running for a rental.
+     *
+     * @param rentalId the ID of the rental
+     * @return a future completed with the updated rental (or null if it was deleted), or empty if no upload is running
+     */
+    public Optional<CompletableFuture<RentalDTO>> findUpload(Long rentalId) {
+        return Optional.ofNullable(uploads.get(rentalId));
+    }
+
+    /**
+     * Waits for the picture of a PENDING rental whose upload is not running in this instance: it may
+     * run on another instance, or be about to start here once the transaction storing the rental has
+     * committed. The rental is read again from the database every POLL_INTERVAL until its picture leaves
+     * PENDING, or an upload shows up here.
+     *
+     * @param rentalId the ID of the rental
+     * @param timeout  how long to poll at most
+     * @return a future completed with the rental once its upload has ended (or null if it was deleted);
+     *         cancelling it stops the polling
+     */
+    public CompletableFuture<RentalDTO> awaitPicture(Long rentalId, Duration timeout) {
+        CompletableFuture<RentalDTO> ended = new CompletableFuture<>();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        executor.execute(() -> {
+            try {
+                while (!ended.isDone() && System.nanoTime() < deadline) {
+                    Thread.sleep(POLL_INTERVAL);
+                    Optional<CompletableFuture<RentalDTO>> upload = findUpload(rentalId);
+                    if (upload.isPresent()) {
+                        upload.get().thenAccept(ended::complete);
+                        return;
+                    }
+                    Optional<RentalDTO> rental = rentalService.findRentalById(rentalId);
+                    if (rental.isEmpty() || rental.get().getPictureStatus() != PictureStatus.PENDING) {
+                        ended.complete(rental.orElse(null));
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                ended.cancel(false);
+            } catch (RuntimeException e) {
+                ended.completeExceptionally(e);
+            }
+        });
+        return ended;
+    }
+
+    /**
+     * Uploads a picture, and the variants of spooled pictures, then records the outcome on the rental.
+     * The rental is READY once its picture is uploaded, even if some variants are missing.
+     *
+     * @param rentalId the ID of the rental
+     * @param file     the spooled file of the picture, or the URL to fetch it from
+     * @return the updated rental, or null if it could not be updated
+     */
+    private RentalDTO upload(Long rentalId, Object file) {
+        PictureDTO stored = null;
+        try {
+            stored = file instanceof Path spooled ? storeSpooled(spooled) : new PictureDTO(null, store(file), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Upload of the picture of rental {} interrupted", rentalId);
+        } catch (Exception e) {
+            logger.warn("Failed to upload the picture of rental {}", rentalId, e);
+        } finally {
+            if (file instanceof Path spooled) {
+                pictureSpool.release(spooled);
+            }
+        }
+
+        try {
+            return stored != null
+                ? rentalService.setPicture(rentalId, stored.getPicture(), stored.getPictureVariants(), PictureStatus.READY).orElse(null)
+                : rentalService.setPicture(rentalId, null, null, PictureStatus.FAILED).orElse(null);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to record the picture of rental {}", rentalId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a spooled picture and its variants, unless the same content is already stored.
+     *
+     * @param spooled the spooled picture
+     * @return the stored picture and its variants
+     */
+    private PictureDTO storeSpooled(Path spooled) throws IOException, InterruptedException {
+        String hash = PictureIndex.hash(spooled);
+        Optional<PictureDTO> existing = pictureIndex.find(hash);
+        if (existing.isPresent()) {
+            // Identical content already stored: no resizing, no upload
+            return existing.get();
+        }
+
+        Map<Integer, Path> variantFiles = pictureResizer.resize(spooled);
+        try {
+            String picture = store(spooled);
+            Map<Integer, String> variants = new TreeMap<>();
+            for (Map.Entry<Integer, Path> variant : variantFiles.entrySet()) {
+                try {
+                    variants.put(variant.getKey(), store(variant.getValue()));
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Failed to upload the {}px variant of picture {}", variant.getKey(), hash, e);
+                }
+            }
+            pictureIndex.record(hash, picture, variants);
+            return new PictureDTO(hash, picture, variants);
+        } finally {
+            variantFiles.values().forEach(pictureSpool::release);
+        }
+    }
+
+    /**
+     * Uploads one file to the storage, through the bulkhead. The rental was admitted when the bulkhead had
+     * room, but it may be full or failing by the time the upload runs: a refused call is then retried with
+     * an exponential backoff, the picture staying in the spool meanwhile.
+     *
+     * @param file the spooled file, or the URL to fetch the picture from
+     * @return the URL of the stored picture
+     * @throws StorageUnavailableException if the storage still refuses the call after the last attempt
+     */
+    private String store(Object file) throws IOException, InterruptedException {
+        Duration backoff = FIRST_BACKOFF;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return storageBulkhead.call(() ->
+                    file instanceof Path spooled ? imageStorage.store(spooled) : imageStorage.storeFrom((String) file));
+            } catch (StorageUnavailableException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                Duration wait = e.getRetryAfter().compareTo(backoff) > 0 ? e.getRetryAfter() : backoff;
+                wait = wait.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : wait;
+                // Spread the retries of the uploads refused together
+                long jitter = ThreadLocalRandom.current().nextLong(wait.toMillis() / 4 + 1);
+                logger.debug("Storage refused a picture ({}), retrying in {} ms", e.getMessage(), wait.toMillis() + jitter);
+                Thread.sleep(wait.toMillis() + jitter);
+                backoff = backoff.multipliedBy(2);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        importWorkers.shutdownNow();
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.dto.RentalDTO;
+import com.example.rental_backend.repository.RentalRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over rental names and descriptions, ranked with BM25.
+ *
+ * The index is built from the database once the application is ready, then kept up to date
+ * by RentalService whenever a rental is created or updated. Postings are stored as primitive
+ * arrays of dense document numbers; an updated rental gets a new document number and its old
+ * one is tombstoned until the next compaction.
+ */
+@Component
+public class RentalSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RentalSearchIndex.class);
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Name tokens count as many occurrences as this, so title matches rank first
+    private static final int NAME_WEIGHT = 3;
+
+    // Shortest query prefix expanded to matching terms, and the most terms it may expand to
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    // Tombstoned documents are purged once they exceed this share of all documents
+    private static final double COMPACTION_RATIO = 0.25;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private final RentalRepository rentalRepository;
+    private final Timer queryTimer;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> postings = new TreeMap<>(); // Term dictionary, sorted for prefix lookups
+    private final Map<Long, Integer> documentsByRental = new HashMap<>(); // Rental ID -> live document number
+    private long[] rentalIds = new long[1024]; // Document number -> rental ID
+    private int[] lengths = new int[1024]; // Document number -> weighted token count
+    private final BitSet deleted = new BitSet();
+    private int documentCount; // Documents allocated, including tombstones
+    private long totalLength; // Sum of the lengths of live documents
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param rentalRepository the repository the index is built from
+     * @param meterRegistry    the registry receiving the index size and query latency metrics
+     */
+    public RentalSearchIndex(RentalRepository rentalRepository, MeterRegistry meterRegistry) {
+        this.rentalRepository = rentalRepository;
+        this.queryTimer = Timer.builder("rentals.search.query")
+            .description("Latency of full-text rental searches")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        Gauge.builder("rentals.search.index.memory", this, RentalSearchIndex::estimatedMemoryBytes)
+            .description("Estimated heap used by the rental search index")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("rentals.search.index.documents", this, RentalSearchIndex::size)
+            .description("Rentals in the search index")
+            .register(meterRegistry);
+        Gauge.builder("rentals.search.index.terms", this, RentalSearchIndex::termCount)
+            .description("Distinct terms in the search index")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Builds the index from every rental in the database once the application has started.
+     * Rentals indexed concurrently by createRental/updateRental are newer and are kept as is.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.nanoTime();
+        try (Stream<RentalDTO> rentals = rentalRepository.streamAll()) {
+            rentals.forEach(rental -> index(rental, false));
+        }
+        logger.info("Indexed {} rentals for search in {} ms ({} terms, ~{} KB)",
+            size(), (System.nanoTime() - start) / 1_000_000, termCount(), estimatedMemoryBytes() / 1024);
+    }
+
+    /**
+     * Adds a rental to the index, or replaces its previous version.
+     *
+     * @param rental the rental to index
+     */
+    public void index(RentalDTO rental) {
+        index(rental, true);
+    }
+
+    /**
+     * Searches the rentals whose name or description contain the query terms.
+     * The last query term also matches longer terms it is a prefix of, for search-as-you-type.
+     *
+     * @param query the user's keywords
+     * @param limit the maximum number of results
+     * @return the IDs of the best matching rentals, best first
+     */
+    public List<Long> search(String query, int limit) {
+        return queryTimer.record(() -> doSearch(query, limit));
+    }
+
+    /**
+     * Gets the number of rentals currently searchable.
+     *
+     * @return the number of live documents
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentsByRental.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits a text into normalized terms: lower case, without diacritics, letters and digits only.
+     *
+     * @param text the text to tokenize, may be null
+     * @return the terms, in order of appearance
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String term : SEPARATORS.split(normalized.toLowerCase(Locale.ROOT))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    private void index(RentalDTO rental, boolean replace) {
+        // Count weighted term frequencies outside the lock
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokenize(rental.getName()).forEach(term -> frequencies.merge(term, NAME_WEIGHT, Integer::sum));
+        tokenize(rental.getDescription()).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+        lock.writeLock().lock();
+        try {
+            Integer previous = documentsByRental.get(rental.getId());
+            if (previous != null) {
+                if (!replace) {
+                    return;
+                }
+                delete(previous);
+            }
+
+            int document = documentCount++;
+            if (document == rentalIds.length) {
+                rentalIds = Arrays.copyOf(rentalIds, document * 2);
+                lengths = Arrays.copyOf(lengths, document * 2);
+            }
+            rentalIds[document] = rental.getId();
+            lengths[document] = length;
+            totalLength += length;
+            documentsByRental.put(rental.getId(), document);
+            frequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, key -> new Postings()).add(document, frequency));
+
+            if (deleted.cardinality() > documentCount * COMPACTION_RATIO) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void delete(int document) {
+        deleted.set(document);
+        totalLength -= lengths[document];
+    }
+
+    private List<Long> doSearch(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int live = documentsByRental.size();
+            if (live == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / live;
+            float[] scores = new float[documentCount];
+            BitSet matched = new BitSet(documentCount);
+
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                boolean last = i == terms.size() - 1;
+                if (last && term.length() >= MIN_PREFIX_LENGTH) {
+                    // Search-as-you-type: the last term matches every indexed term it prefixes
+                    int expansions = 0;
+                    for (Map.Entry<String, Postings> entry : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+                        score(entry.getValue(), live, averageLength, scores, matched);
+                        if (++expansions == MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                    }
+                } else {
+                    Postings list = postings.get(term);
+                    if (list != null) {
+                        score(list, live, averageLength, scores, matched);
+                    }
+                }
+            }
+
+            // Keep the best results in a bounded min-heap
+            PriorityQueue<Integer> best = new PriorityQueue<>(Comparator.comparingDouble(document -> scores[document]));
+            for (int document = matched.nextSetBit(0); document >= 0; document = matched.nextSetBit(document + 1)) {
+                best.offer(document);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            Long[] ids = new Long[best.size()];
+            for (int i = ids.length - 1; i >= 0; i--) {
+                ids[i] = rentalIds[best.poll()];
+            }
+            return Arrays.asList(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void score(Postings list, int live, double averageLength, float[] scores, BitSet matched) {
+        // Tombstones are counted in the document frequency until the next compaction
+        int documentFrequency = Math.min(list.size, live);
+        double idf = Math.log(1 + (live - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        for (int i = 0; i < list.size; i++) {
+            int document = list.documents[i];
+            if (deleted.get(document)) {
+                continue;
+            }
+            int frequency = list.frequencies[i];
+            double norm = K1 * (1 - B + B * lengths[document] / averageLength);
+            scores[document] += (float) (idf * frequency * (K1 + 1) / (frequency + norm));
+            matched.set(document);
+        }
+    }
+
+    /**
+     * Drops tombstoned documents and renumbers the live ones. Called under the write lock.
+     */
+    private void compact() {
+        int[] renumbered = new int[documentCount];
+        int live = 0;
+        for (int document = 0; document < documentCount; document++) {
+            if (deleted.get(document)) {
+                renumbered[document] = -1;
+            } else {
+                renumbered[document] = live;
+                rentalIds[live] = rentalIds[document];
+                lengths[live] = lengths[document];
+                documentsByRental.put(rentalIds[live], live);
+                live++;
+            }
+        }
+        postings.values().removeIf(list -> list.renumber(renumbered) == 0);
+        documentCount = live;
+        deleted.clear();
+    }
+
+    private int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates the heap retained by the index: term strings and dictionary entries,
+     * posting arrays, per-document arrays and the rental ID map.
+     */
+    private long estimatedMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 16L * rentalIds.length + (long) deleted.size() / 8 + 64L * documentsByRental.size();
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                bytes += 40 + 48 + entry.getKey().length() // Tree entry and String with its byte array
+                    + 24 + 32 + 8L * entry.getValue().documents.length; // Postings and its two int arrays
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Posting list of one term: parallel arrays of document numbers and term frequencies.
+     */
+    private static final class Postings {
+        private int[] documents = new int[2];
+        private int[] frequencies = new int[2];
+        private int size;
+
+        void add(int document, int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        int renumber(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int document = renumbered[documents[i]];
+                if (document >= 0) {
+                    documents[kept] = document;
+                    frequencies[kept] = frequencies[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            return kept;
+        }
+    }
+}
@@ -1,97 +1,438 @@
 package com.example.rental_backend.service;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
-
+import com.example.rental_backend.config.CacheConfig;
+import com.example.rental_backend.dto.PictureDTO;
 import com.example.rental_backend.dto.RentalDTO;
+import com.example.rental_backend.dto.RentalImportDTO;
+import com.example.rental_backend.dto.RentalPatchDTO;
+import com.example.rental_backend.dto.RentalsWrapperDTO;
+import com.example.rental_backend.dto.UserDTO;
+import com.example.rental_backend.model.PictureStatus;
 import com.example.rental_backend.model.Rental;
 import com.example.rental_backend.model.User;
+import com.example.rental_backend.repository.FieldProjections;
+import com.example.rental_backend.repository.RentalField;
+import com.example.rental_backend.repository.RentalFilter;
 import com.example.rental_backend.repository.RentalRepository;
+import com.example.rental_backend.repository.RentalRepositoryCustom;
+import com.example.rental_backend.repository.RentalSort;
 import com.example.rental_backend.repository.UserRepository;
+import com.example.rental_backend.storage.ImageStorage;
+import com.example.rental_backend.storage.StorageBulkhead;
+import com.example.rental_backend.storage.StorageUnavailableException;
+
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.Tuple;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Service for reading and writing rentals.
+ *
+ * Methods run in read-only transactions unless annotated otherwise: Hibernate then skips flushing
+ * and dirty-checking (FlushMode.MANUAL, read-only entities without snapshots), and the routing
+ * DataSource may serve them from a replica. Writes run in a single read-write transaction each.
+ */
 @Service
+@Transactional(readOnly = true)
 public class RentalService {
 
+    // Upper bound of the page size accepted by the rentals listing
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final RentalRepository rentalRepository;
-    private final Cloudinary cloudinary;
     private final UserRepository userRepository;
+    private final RentalSearchIndex searchIndex;
+    private final RentalJsonCache jsonCache;
+    private final PictureSpool pictureSpool;
+    private final PictureIndex pictureIndex;
+    private final PictureUploads pictureUploads;
+    private final ImageStorage imageStorage;
+    private final StorageBulkhead storageBulkhead;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Constructor injection for dependencies
-    public RentalService(RentalRepository rentalRepository, Cloudinary cloudinary, UserRepository userRepository) {
+    public RentalService(RentalRepository rentalRepository, UserRepository userRepository,
+                         RentalSearchIndex searchIndex, RentalJsonCache jsonCache,
+                         PictureSpool pictureSpool, PictureIndex pictureIndex, PictureUploads pictureUploads,
+                         ImageStorage imageStorage, StorageBulkhead storageBulkhead,
+                         ApplicationEventPublisher eventPublisher) {
         this.rentalRepository = rentalRepository;
-        this.cloudinary = cloudinary;
         this.userRepository = userRepository;
+        this.searchIndex = searchIndex;
+        this.jsonCache = jsonCache;
+        this.pictureSpool = pictureSpool;
+        this.pictureIndex = pictureIndex;
+        this.pictureUploads = pictureUploads;
+        this.imageStorage = imageStorage;
+        this.storageBulkhead = storageBulkhead;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Retrieve all rentals from the database and convert them to DTOs.
+     * Retrieve one page of rentals matching the filter, using keyset pagination on (sort attribute, id).
+     * Each call reads at most {@code limit + 1} rows through the index of the sort attribute,
+     * whatever the size of the table.
      * 
-     * @return a list of RentalDTO
+     * @param filter the price and surface ranges to apply
+     * @param sort   the sort order
+     * @param cursor the opaque cursor returned with the previous page, or null for the first page
+     * @param limit  the maximum number of rentals to return
+     * @return the page of rentals and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor is malformed or the limit is out of range
      */
-    public List<RentalDTO> getAllRentals() {
-        return rentalRepository.findAll().stream()
-            .map(this::convertToDTO) // Convert each Rental entity to a DTO
-            .collect(Collectors.toList());
+    public RentalsWrapperDTO getRentals(RentalFilter filter, RentalSort sort, String cursor, int limit) {
+        checkLimit(limit);
+        RentalCursor position = decodeCursor(cursor, sort);
+
+        // Fetch one extra row to know whether another page follows
+        List<RentalDTO> rows = rentalRepository.findPage(filter, sort,
+            position == null ? null : position.getValue(), position == null ? null : position.getId(), limit + 1);
+
+        boolean hasNext = rows.size() > limit;
+        List<RentalDTO> rentals = hasNext ? rows.subList(0, limit) : rows;
+
+        String next = null;
+        if (hasNext) {
+            RentalDTO last = rentals.get(rentals.size() - 1);
+            next = new RentalCursor(sort, sortValue(last, sort), last.getId()).encode();
+        }
+        return new RentalsWrapperDTO(rentals, next);
+    }
+
+    /**
+     * Retrieve one page of rentals like {@link #getRentals(RentalFilter, RentalSort, String, int)},
+     * reading and returning only the requested fields.
+     *
+     * @param filter the price and surface ranges to apply
+     * @param sort   the sort order
+     * @param cursor the opaque cursor returned with the previous page, or null for the first page
+     * @param limit  the maximum number of rentals to return
+     * @param fields the fields to return for each rental
+     * @return a map holding the rentals under "rentals" and the cursor of the next page under "next"
+     * @throws IllegalArgumentException if the cursor is malformed or the limit is out of range
+     */
+    public Map<String, Object> getRentals(RentalFilter filter, RentalSort sort, String cursor, int limit,
+                                          List<RentalField> fields) {
+        checkLimit(limit);
+        RentalCursor position = decodeCursor(cursor, sort);
+
+        // Fetch one extra row to know whether another page follows
+        List<Tuple> rows = rentalRepository.findPage(filter, sort,
+            position == null ? null : position.getValue(), position == null ? null : position.getId(), limit + 1, fields);
+
+        boolean hasNext = rows.size() > limit;
+        List<Tuple> page = hasNext ? rows.subList(0, limit) : rows;
+
+        String next = null;
+        if (hasNext) {
+            Tuple last = page.get(page.size() - 1);
+            next = new RentalCursor(sort, last.get(RentalRepositoryCustom.KEY_VALUE),
+                last.get(RentalRepositoryCustom.KEY_ID, Long.class)).encode();
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("rentals", page.stream()
+            .map(row -> FieldProjections.toMap(row, fields))
+            .collect(Collectors.toList()));
+        response.put("next", next);
+        return response;
+    }
+
+    /**
+     * Search rentals by keywords in their name and description, best matches first.
+     *
+     * @param query the keywords; the last one also matches as a prefix
+     * @param limit the maximum number of rentals to return
+     * @return the matching rentals, ordered by relevance
+     * @throws IllegalArgumentException if the limit is out of range
+     */
+    public RentalsWrapperDTO searchRentals(String query, int limit) {
+        checkLimit(limit);
+
+        // Load the matches in one query, in relevance order
+        return new RentalsWrapperDTO(findInOrder(searchIndex.search(query, limit)));
+    }
+
+    /**
+     * Retrieve several rentals by their IDs, optionally with their owners embedded.
+     * Rentals are read in one query and owners in a second one, whatever the number of rentals.
+     *
+     * @param ids         the rental IDs, in the order the rentals should be returned
+     * @param expandOwner true to embed the owner of each rental
+     * @return the rentals found, in the requested order; unknown IDs are skipped
+     * @throws IllegalArgumentException if more than MAX_PAGE_SIZE IDs are requested
+     */
+    public RentalsWrapperDTO getRentalsByIds(List<Long> ids, boolean expandOwner) {
+        List<Long> distinctIds = ids.stream().distinct().collect(Collectors.toList());
+        if (distinctIds.size() > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_PAGE_SIZE + " IDs can be requested at once");
+        }
+
+        List<RentalDTO> rentals = findInOrder(distinctIds);
+        if (expandOwner && !rentals.isEmpty()) {
+            // One batched lookup for all the owners of the page
+            Set<Long> ownerIds = rentals.stream()
+                .map(RentalDTO::getOwnerId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+            Map<Long, UserDTO> owners = ownerIds.isEmpty() ? Map.of() : userRepository.findDtosByIds(ownerIds).stream()
+                .collect(Collectors.toMap(UserDTO::getId, Function.identity()));
+            rentals.forEach(rental -> rental.setOwner(owners.get(rental.getOwnerId())));
+        }
+        return new RentalsWrapperDTO(rentals);
+    }
+
+    /**
+     * Retrieve the rentals of an owner, newest first, with the number of messages each received.
+     *
+     * @param email the email of the owner
+     * @return the owner's rentals, each with its message count
+     */
+    public RentalsWrapperDTO getOwnerRentals(String email) {
+        return new RentalsWrapperDTO(rentalRepository.findDtosWithMessageCountByOwnerEmail(email));
+    }
+
+    /**
+     * Hand every rental to the given consumer, one at a time, as rows arrive from the database.
+     * Rows are projected straight into DTOs, so nothing accumulates in the persistence context.
+     *
+     * Runs in the class-level read-only transaction the stream needs.
+     *
+     * @param consumer the callback receiving each RentalDTO
+     */
+    public void streamRentals(Consumer<RentalDTO> consumer) {
+        try (Stream<RentalDTO> rentals = rentalRepository.streamAll()) {
+            rentals.forEach(consumer);
+        }
     }
 
     /**
      * Retrieve a specific rental by its ID.
+     * Results are served from the rentals cache, which createRental and updateRental write through.
      * 
      * @param id the ID of the rental
      * @return an Optional containing the RentalDTO if found, otherwise empty
      */
+    @Cacheable(cacheNames = CacheConfig.RENTALS_CACHE, key = "#id", unless = "#result == null")
     public Optional<RentalDTO> getRentalById(Long id) {
-        return rentalRepository.findById(id).map(this::convertToDTO);
+        return rentalRepository.findDtoById(id);
+    }
+
+    /**
+     * Read a rental from the database, bypassing the rentals cache, for callers waiting on a change
+     * made elsewhere (another instance, or a background upload).
+     *
+     * @param id the ID of the rental
+     * @return an Optional containing the RentalDTO if found, otherwise empty
+     */
+    public Optional<RentalDTO> findRentalById(Long id) {
+        return rentalRepository.findDtoById(id);
+    }
+
+    /**
+     * Retrieve only the requested fields of a rental.
+     *
+     * @param id     the ID of the rental
+     * @param fields the fields to return
+     * @return an Optional containing the field values keyed by name, otherwise empty
+     */
+    public Optional<Map<String, Object>> getRentalById(Long id, List<RentalField> fields) {
+        return rentalRepository.findFieldsById(id, fields).map(row -> FieldProjections.toMap(row, fields));
     }
 
     /**
      * Create a new rental with an uploaded picture.
+     * The rental is stored with a PENDING picture; the picture is moved to the PictureSpool on disk
+     * and uploaded by RentalPictureUploader once the rental is committed, so the request neither
+     * waits for the storage nor holds the picture in memory.
+     * A picture already stored can be given by the SHA-256 of its content instead; it is then
+     * reused and the rental is READY at once. A picture sent through a resumable upload is given
+     * by the upload's ID, and queued like a picture file once the upload is complete. A picture uploaded
+     * straight to the storage is given by its reference, checked with the storage; the rental is then READY
+     * at once, without variants since the picture never goes through this server.
      *
      * @param name        the name of the rental
      * @param surface     the surface of the rental
      * @param price       the price of the rental
      * @param description the description of the rental
-     * @param picture     the picture file to be uploaded
+     * @param picture     the picture file to be uploaded, or null for none
+     * @param pictureHash the SHA-256 of a picture already stored, used when no picture file is sent
+     * @param uploadId    the ID of a complete resumable upload of the picture, used when no picture file is sent
+     * @param pictureRef  the reference of a picture uploaded straight to the storage, used when no picture file is sent
      * @return the created RentalDTO
-     * @throws IOException if there is an error during file upload
+     * @throws IllegalArgumentException if the owner, the picture hash, the upload or the picture reference is unknown,
+     *                                  or several pictures are given
+     * @throws StorageUnavailableException if a picture is sent while the storage cannot take it
+     * @throws IOException if the picture cannot be spooled
      */
-    public RentalDTO createRental(String name, Integer surface, Double price, String description, MultipartFile picture, String email) throws IOException {
+    @Transactional
+    public RentalDTO createRental(String name, Integer surface, Double price, String description, MultipartFile picture,
+                                  String pictureHash, String uploadId, String pictureRef, String email) throws IOException {
+
+        boolean hasFile = picture != null && !picture.isEmpty();
+        boolean hasUpload = hasText(uploadId);
+        boolean hasPicture = hasFile || hasUpload;
+        if ((hasFile ? 1 : 0) + (hasUpload ? 1 : 0) + (hasText(pictureHash) ? 1 : 0) + (hasText(pictureRef) ? 1 : 0) > 1) {
+            throw new IllegalArgumentException("Send only one of a picture, a picture hash, an upload ID or a picture reference");
+        }
+
+        // Check a direct upload with the storage before any query: the DataSource hands out connections
+        // lazily, so none is held while waiting on the storage
+        String directPicture = hasText(pictureRef) ? verifyDirectUpload(pictureRef, email) : null;
 
-        // Upload the picture to Cloudinary
-        Map<String, Object> uploadResult = cloudinary.uploader().upload(picture.getBytes(), ObjectUtils.emptyMap());
-        String pictureUrl = (String) uploadResult.get("url");
-        
         // Find the owner by email
         User owner = userRepository.findByEmail(email)
             .orElseThrow(() -> new IllegalArgumentException("Owner not found with ID: " + email));
 
+        // Reuse a picture already stored, found by its content hash
+        PictureDTO stored = null;
+        if (hasPicture) {
+            // Refuse at once rather than accept a picture the storage cannot take now
+            storageBulkhead.checkAvailable();
+        }
+        if (hasText(pictureHash)) {
+            stored = pictureIndex.find(pictureHash)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown picture hash, send the picture itself"));
+        }
+
+        // Move the picture to the spool before writing anything, so a failure leaves no PENDING rental behind;
+        // a resumable upload is already there, and is only dropped once the rental is committed
+        Path spooled = hasFile ? pictureSpool.spool(picture) : hasUpload ? pictureUploads.claim(uploadId, email) : null;
+
         // Create the rental entity
         Rental rental = new Rental();
         rental.setName(name);
         rental.setSurface(surface);
         rental.setPrice(price);
         rental.setDescription(description);
-        rental.setPicture(pictureUrl); // Set the uploaded picture URL
+        if (directPicture != null) {
+            rental.setPicture(directPicture);
+            rental.setPictureStatus(PictureStatus.READY);
+        } else if (stored != null) {
+            rental.setPicture(stored.getPicture());
+            rental.setPictureVariants(stored.getPictureVariants());
+            rental.setPictureStatus(PictureStatus.READY);
+        } else {
+            rental.setPictureStatus(hasPicture ? PictureStatus.PENDING : null); // Set to the picture URL once uploaded
+        }
         rental.setCreatedAt(LocalDateTime.now());
         rental.setUpdatedAt(LocalDateTime.now());
         rental.setOwnerId(owner.getId());
         // rental.setOwner(owner); // Associe le propriétaire
 
-        // Save the rental to the database
-        rentalRepository.save(rental);
+        // Save the rental to the database and name its picture after it, then queue the picture for upload after commit
+        try {
+            rentalRepository.save(rental);
+            if (spooled != null) {
+                spooled = pictureSpool.assign(spooled, rental.getId());
+            }
+        } catch (IOException | RuntimeException e) {
+            if (hasUpload) {
+                pictureUploads.restore(uploadId, spooled);
+            } else if (spooled != null) {
+                pictureSpool.release(spooled);
+            }
+            throw e;
+        }
+        if (spooled != null) {
+            // Released by RentalPictureUploader after the upload; if the transaction rolls back, released
+            // by it too, or given back to the user by PictureUploads for a resumable upload
+            eventPublisher.publishEvent(new RentalPictureUpload(rental.getId(), spooled, hasUpload ? uploadId : null));
+        }
 
-        // Map the saved entity to a DTO and return it
-        return convertToDTO(rental);
+        // Map the saved entity to a DTO, make it searchable once committed and return it
+        RentalDTO dto = convertToDTO(rental);
+        eventPublisher.publishEvent(new RentalChanged(dto.getId(), dto));
+        return dto;
+    }
+
+    /**
+     * Create several rentals of an owner in one transaction.
+     * IDs come from the pooled RENTALS_SEQ allocator, so Hibernate sends the inserts in JDBC batches
+     * (hibernate.jdbc.batch_size) when the transaction commits. Pictures given as URLs are uploaded
+     * in the background once the transaction commits.
+     *
+     * @param rows    the rentals to create
+     * @param ownerId the ID of the owner of the rentals
+     * @return the created RentalDTOs, in the order of the rows
+     */
+    @Transactional
+    public List<RentalDTO> createRentals(List<RentalImportDTO> rows, Long ownerId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Rental> rentals = new ArrayList<>(rows.size());
+        for (RentalImportDTO row : rows) {
+            Rental rental = new Rental();
+            rental.setName(row.getName());
+            rental.setSurface(row.getSurface());
+            rental.setPrice(row.getPrice());
+            rental.setDescription(row.getDescription());
+            rental.setCreatedAt(now);
+            rental.setUpdatedAt(now);
+            rental.setOwnerId(ownerId);
+            rental.setPictureStatus(hasText(row.getPicture()) ? PictureStatus.PENDING : null);
+            rentals.add(rental);
+        }
+        rentalRepository.saveAll(rentals);
+        for (int i = 0; i < rentals.size(); i++) {
+            if (hasText(rows.get(i).getPicture())) {
+                eventPublisher.publishEvent(new RentalPictureUpload(rentals.get(i).getId(), rows.get(i).getPicture()));
+            }
+        }
+        return rentals.stream().map(this::convertToDTO).collect(Collectors.toList());
+    }
+
+    /**
+     * Find the rentals whose picture was still waiting for its upload when the application started.
+     *
+     * @param startedAt when the application started
+     * @return the IDs of the rentals whose picture is PENDING since before then
+     */
+    public List<Long> getPendingPictures(LocalDateTime startedAt) {
+        return rentalRepository.findIdsByPictureStatusUpdatedBefore(PictureStatus.PENDING, startedAt);
+    }
+
+    /**
+     * Record the outcome of a background picture upload.
+     *
+     * @param id       the ID of the rental
+     * @param picture  the URL of the uploaded picture, or null if the upload failed
+     * @param variants the URLs of the resized pictures by width, or null for none
+     * @param status   READY or FAILED
+     * @return an Optional containing the updated RentalDTO, or empty if the rental no longer exists
+     */
+    @Transactional
+    public Optional<RentalDTO> setPicture(Long id, String picture, Map<Integer, String> variants, PictureStatus status) {
+        if (rentalRepository.updatePicture(id, picture, variants, status, LocalDateTime.now()) == 0) {
+            return Optional.empty();
+        }
+        eventPublisher.publishEvent(new RentalChanged(id));
+        // Read back in this transaction, from the primary, for the callers waiting on the upload
+        return rentalRepository.findDtoById(id);
     }
 
     /**
@@ -105,6 +446,7 @@ public class RentalService {
      * @return the updated RentalDTO
      * @throws IllegalArgumentException if the rental is not found
      */
+    @Transactional
     public RentalDTO updateRental(Long id, String name, Integer surface, Double price, String description) {
         // Find the existing rental
         Rental rental = rentalRepository.findById(id)
@@ -117,11 +459,153 @@ public class RentalService {
         rental.setDescription(description);
         rental.setUpdatedAt(LocalDateTime.now());
 
-        // Save the updated rental to the database
-        rentalRepository.save(rental);
+        // Write the single UPDATE now, so the returned DTO carries the incremented version
+        rentalRepository.flush();
+
+        // Convert the updated entity to DTO; its cached copies and search entry are refreshed once committed
+        RentalDTO dto = convertToDTO(rental);
+        eventPublisher.publishEvent(new RentalChanged(id, dto));
+        return dto;
+    }
+
+    /**
+     * Partially update a rental: only the fields set in the patch are written, in a single UPDATE
+     * guarded by the version the client read. The rental is not loaded first.
+     *
+     * @param id    the ID of the rental to update
+     * @param patch the fields to change and the version they were made against
+     * @return the new version of the rental
+     * @throws IllegalArgumentException if the version is missing or no field is set
+     * @throws EntityNotFoundException if the rental does not exist
+     * @throws OptimisticLockingFailureException if the rental was updated since that version
+     */
+    @Transactional
+    public long patchRental(Long id, RentalPatchDTO patch) {
+        if (patch.getVersion() == null) {
+            throw new IllegalArgumentException("The version of the rental is required");
+        }
+        Map<RentalField, Object> values = new EnumMap<>(RentalField.class);
+        if (patch.getName() != null) {
+            values.put(RentalField.NAME, patch.getName());
+        }
+        if (patch.getSurface() != null) {
+            values.put(RentalField.SURFACE, patch.getSurface());
+        }
+        if (patch.getPrice() != null) {
+            values.put(RentalField.PRICE, patch.getPrice());
+        }
+        if (patch.getDescription() != null) {
+            values.put(RentalField.DESCRIPTION, patch.getDescription());
+        }
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("No field to update");
+        }
+
+        if (rentalRepository.updateFields(id, patch.getVersion(), values, LocalDateTime.now()) == 0) {
+            // Only a rejected update needs to tell a missing rental from a concurrent change
+            if (!rentalRepository.existsById(id)) {
+                throw new EntityNotFoundException("Rental not found with ID: " + id);
+            }
+            throw new OptimisticLockingFailureException("Rental " + id + " was updated since version " + patch.getVersion());
+        }
+
+        // Drop the cached copies once committed, and refresh the search entry then when its text changed
+        boolean textChanged = values.containsKey(RentalField.NAME) || values.containsKey(RentalField.DESCRIPTION);
+        eventPublisher.publishEvent(new RentalChanged(id, textChanged ? rentalRepository.findDtoById(id).orElse(null) : null));
+        return patch.getVersion() + 1;
+    }
+
+    /**
+     * Evicts a rental from the rentals cache and the JSON cache once the transaction that wrote it
+     * has committed, and indexes the text it wrote. Evicting earlier would let a concurrent read cache
+     * the old row again before the commit, and indexing earlier would make a rolled back write
+     * searchable; a rolled back write leaves the cached copies and the search entry valid.
+     *
+     * @param event the rental written
+     */
+    @CacheEvict(cacheNames = CacheConfig.RENTALS_CACHE, key = "#event.rentalId")
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onRentalChanged(RentalChanged event) {
+        jsonCache.evict(event.getRentalId());
+        if (event.getSearchable() != null) {
+            searchIndex.index(event.getSearchable());
+        }
+    }
+
+    /**
+     * Loads rentals by ID in one query and returns them in the order of the IDs, skipping unknown ones.
+     * The DTOs are freshly read, never shared with the rentals cache, so callers may modify them.
+     */
+    private List<RentalDTO> findInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, RentalDTO> rentals = rentalRepository.findDtosByIds(ids).stream()
+            .collect(Collectors.toMap(RentalDTO::getId, Function.identity()));
+        return ids.stream()
+            .map(rentals::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Check with the storage, through its bulkhead, that a picture uploaded straight to it has arrived.
+     *
+     * @return the URL of the picture
+     */
+    private String verifyDirectUpload(String pictureRef, String email) throws IOException {
+        try {
+            return storageBulkhead.call(() -> imageStorage.verifyDirectUpload(pictureRef, email));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while checking the picture", e);
+        }
+    }
+
+    /**
+     * Tell whether an optional text value, such as a picture URL, is set.
+     */
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    /**
+     * Check that a requested page size is within the accepted range.
+     *
+     * @param limit the requested page size
+     * @throws IllegalArgumentException if the limit is out of range
+     */
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    /**
+     * Decode the cursor of a listing request.
+     *
+     * @param cursor the opaque cursor, or null/empty for the first page
+     * @param sort   the sort order of the request
+     * @return the decoded position, or null for the first page
+     */
+    private static RentalCursor decodeCursor(String cursor, RentalSort sort) {
+        return cursor == null || cursor.isEmpty() ? null : RentalCursor.decode(cursor, sort);
+    }
 
-        // Convert the updated entity to DTO and return
-        return convertToDTO(rental);
+    /**
+     * Read the value of the sort attribute of a rental, to position the next page's cursor.
+     *
+     * @param rental the rental
+     * @param sort   the sort order
+     * @return the value of the sort attribute
+     */
+    private static Object sortValue(RentalDTO rental, RentalSort sort) {
+        return switch (sort) {
+            case NEWEST, OLDEST -> rental.getCreatedAt();
+            case PRICE_ASC, PRICE_DESC -> rental.getPrice();
+            case SURFACE_ASC, SURFACE_DESC -> rental.getSurface();
+        };
     }
 
     /**
@@ -137,10 +621,13 @@ public class RentalService {
         dto.setSurface(rental.getSurface());
         dto.setPrice(rental.getPrice());
         dto.setPicture(rental.getPicture());
+        dto.setPictureStatus(rental.getPictureStatus());
+        dto.setPictureVariants(rental.getPictureVariants());
         dto.setDescription(rental.getDescription());
         dto.setCreatedAt(rental.getCreatedAt());
         dto.setUpdatedAt(rental.getUpdatedAt());
         dto.setOwnerId(rental.getOwnerId());
+        dto.setVersion(rental.getVersion());
         return dto;
     }
 }
@@ -4,20 +4,27 @@ package com.example.rental_backend.service;
 import com.example.rental_backend.dto.RegisterDTO;
 import com.example.rental_backend.dto.UserDTO;
 import com.example.rental_backend.model.User;
+import com.example.rental_backend.repository.FieldProjections;
+import com.example.rental_backend.repository.UserField;
 import com.example.rental_backend.repository.UserRepository;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service class for managing user-related operations.
  * This service acts as a bridge between the controllers and the repositories.
  */
 @Service
+@Transactional(readOnly = true) // Reads skip flushing and dirty-checking, and may be served by a replica
 public class UserService {
 
     private final UserRepository userRepository;
@@ -38,6 +45,7 @@ public class UserService {
      * @param registerDTO the data transfer object containing user registration details
      * @return the saved User entity
      */
+    @Transactional
     public User registerUser(RegisterDTO registerDTO) {
         // Create a new User object and populate it with data from the DTO
         User user = new User();
@@ -62,12 +70,9 @@ public class UserService {
      * @throws RuntimeException if the user is not found
      */
     public UserDTO getUserByEmail(String email) {
-        // Fetch the user by email, throw an exception if not found
-        User user = userRepository.findByEmail(email)
+        // Project the user's public columns straight into a DTO, throw an exception if not found
+        return userRepository.findDtoByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-
-        // Convert the User entity to a UserDTO
-        return new UserDTO(user.getId(), user.getName(), user.getEmail(), user.getCreatedAt(), user.getUpdatedAt());
     }
 
     /**
@@ -77,17 +82,30 @@ public class UserService {
      * @throws RuntimeException if the user is not found
      */
     public UserDTO getUserById(Long id) {
-        // Fetch the user by ID, throw an exception if not found
-        User user = userRepository.findById(id)
+        // Project the user's public columns straight into a DTO, throw an exception if not found
+        return userRepository.findDtoById(id)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    /**
+     * Retrieves only the requested fields of a user.
+     * @param id the ID of the user
+     * @param fields the fields to return
+     * @return the field values keyed by name
+     * @throws RuntimeException if the user is not found
+     */
+    public Map<String, Object> getUserById(Long id, List<UserField> fields) {
+        return userRepository.findFieldsById(id, fields)
+                .map(row -> FieldProjections.toMap(row, fields))
                 .orElseThrow(() -> new RuntimeException("User not found"));
+    }
 
-        // Convert the User entity to a UserDTO
-        return new UserDTO(
-            user.getId(),
-            user.getName(),
-            user.getEmail(),
-            user.getCreatedAt(),
-            user.getUpdatedAt()
-        );
+    /**
+     * Retrieves the last update timestamp of a user, used to validate cached copies.
+     * @param id the ID of the user
+     * @return an Optional containing the update timestamp, or empty if the user is not found
+     */
+    public Optional<LocalDateTime> getUserLastModified(Long id) {
+        return userRepository.findUpdatedAtById(id);
     }
 }
@@ -0,0 +1,126 @@
+package com.example.rental_backend.storage;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import com.example.rental_backend.dto.DirectUploadDTO;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Image storage on Cloudinary, the default.
+ *
+ * Direct uploads are Cloudinary signed uploads of a public ID issued by the server. The public ID
+ * carries a signature of the owner, so it is verified without any state; the picture's arrival is then
+ * checked with a HEAD request on its delivery URL, which unlike the Admin API is not rate limited.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryImageStorage implements ImageStorage {
+
+    private static final String FOLDER = "rentals/";
+    private static final Pattern PUBLIC_ID = Pattern.compile(Pattern.quote(FOLDER) + "[0-9a-f]{32}");
+
+    // Cloudinary refuses signed uploads whose timestamp is older than an hour
+    private static final Duration SIGNATURE_VALIDITY = Duration.ofHours(1);
+
+    private final Cloudinary cloudinary;
+    private final Duration readTimeout;
+    private final HttpClient httpClient;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param cloudinary     the Cloudinary client
+     * @param connectTimeout how long to wait for a connection when checking a direct upload
+     * @param readTimeout    how long to wait for the response when checking a direct upload
+     */
+    public CloudinaryImageStorage(Cloudinary cloudinary,
+                                  @Value("${app.storage.connect-timeout:5s}") Duration connectTimeout,
+                                  @Value("${app.storage.read-timeout:30s}") Duration readTimeout) {
+        this.cloudinary = cloudinary;
+        this.readTimeout = readTimeout;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(connectTimeout).build();
+    }
+
+    @Override
+    public String store(Path file) throws IOException {
+        // Cloudinary streams a File from disk in small chunks, never loading it whole
+        return upload(file.toFile());
+    }
+
+    @Override
+    public String storeFrom(String url) throws IOException {
+        // Cloudinary fetches remote URLs itself
+        return upload(url);
+    }
+
+    @Override
+    public DirectUploadDTO prepareDirectUpload(String owner) {
+        String publicId = FOLDER + Signatures.issueKey(secret(), owner);
+        Instant now = Instant.now();
+
+        Map<String, Object> signed = new LinkedHashMap<>();
+        signed.put("public_id", publicId);
+        signed.put("timestamp", String.valueOf(now.getEpochSecond()));
+        signed.put("overwrite", "false");
+        Map<String, String> fields = new LinkedHashMap<>();
+        signed.forEach((name, value) -> fields.put(name, (String) value));
+        fields.put("api_key", cloudinary.config.apiKey);
+        fields.put("signature", cloudinary.apiSignRequest(signed, cloudinary.config.apiSecret));
+
+        return new DirectUploadDTO("https://api.cloudinary.com/v1_1/" + cloudinary.config.cloudName + "/image/upload",
+            "POST", fields, publicId, LocalDateTime.ofInstant(now.plus(SIGNATURE_VALIDITY), ZoneId.systemDefault()));
+    }
+
+    @Override
+    public String verifyDirectUpload(String pictureRef, String owner) throws IOException {
+        if (pictureRef == null || !PUBLIC_ID.matcher(pictureRef).matches()
+            || !Signatures.isIssuedTo(secret(), pictureRef.substring(FOLDER.length()), owner)) {
+            throw new IllegalArgumentException("Unknown picture reference");
+        }
+        String url = cloudinary.url().generate(pictureRef);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+            .method("HEAD", HttpRequest.BodyPublishers.noBody())
+            .timeout(readTimeout)
+            .build();
+        try {
+            int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status == 404) {
+                throw new IllegalArgumentException("The picture has not been uploaded");
+            }
+            if (status != 200) {
+                throw new IOException("Checking " + url + " answered " + status);
+            }
+            return url;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while checking " + url, e);
+        }
+    }
+
+    private byte[] secret() {
+        return cloudinary.config.apiSecret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String upload(Object source) throws IOException {
+        Map<?, ?> uploadResult = cloudinary.uploader().upload(source, ObjectUtils.emptyMap());
+        return (String) uploadResult.get("url");
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.rental_backend.storage;
+
+import com.example.rental_backend.dto.DirectUploadDTO;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Store keeping the rental pictures, selected with the {@code app.storage.type} property:
+ * {@code cloudinary} (the default) or {@code local}.
+ *
+ * Stored pictures are never overwritten: each call stores a new picture under a new URL.
+ * Clients may also upload pictures straight to the storage, with parameters signed by the server,
+ * so the picture bytes never go through the application.
+ */
+public interface ImageStorage {
+
+    /**
+     * Stores a picture from a file on this server. The file is left in place.
+     *
+     * @param file the picture file
+     * @return the URL of the stored picture
+     * @throws IllegalArgumentException if the file is not a picture the storage accepts
+     * @throws IOException if the picture cannot be stored
+     */
+    String store(Path file) throws IOException;
+
+    /**
+     * Stores a picture fetched from a remote URL.
+     *
+     * @param url the URL to fetch the picture from
+     * @return the URL of the stored picture
+     * @throws IllegalArgumentException if the URL does not lead to a picture the storage accepts, including
+     *                                  when its server cannot be reached, fails or is too slow
+     * @throws IOException if the picture cannot be stored
+     */
+    String storeFrom(String url) throws IOException;
+
+    /**
+     * Issues the signed parameters for a client to upload one picture straight to the storage.
+     *
+     * @param owner the email of the user uploading; only they can claim the picture
+     * @return the upload parameters and the reference of the picture
+     */
+    DirectUploadDTO prepareDirectUpload(String owner);
+
+    /**
+     * Checks that a picture uploaded straight to the storage was issued to the owner and has arrived.
+     *
+     * @param pictureRef the reference returned by prepareDirectUpload
+     * @param owner      the email of the user claiming the picture
+     * @return the URL of the stored picture
+     * @throws IllegalArgumentException if the reference was not issued to the owner, or the picture has not been uploaded
+     * @throws IOException if the storage cannot be reached
+     */
+    String verifyDirectUpload(String pictureRef, String owner) throws IOException;
+}
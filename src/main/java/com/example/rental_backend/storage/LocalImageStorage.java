@@ -0,0 +1,475 @@
+package com.example.rental_backend.storage;
+
+import com.example.rental_backend.dto.DirectUploadDTO;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.io.Closer;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Image storage in a local directory, for on-premises deployments and load tests.
+ *
+ * Each picture is kept under a new random key, named after its format, and served back by
+ * ImageController at {@code app.storage.local.base-url} + key. A picture is written to a temporary
+ * file first and renamed once complete, so a key never points to a partial file.
+ *
+ * Pictures given by URL are fetched over http or https only, from public addresses: the host of each
+ * request, redirects included, is resolved once and checked, and the connection is made to the very
+ * addresses checked, so a DNS answer changing in between cannot lead to an internal address. The body
+ * is capped like a direct upload, and the whole download by {@code app.storage.read-timeout}. A URL that
+ * cannot be fetched is a bad picture, not a storage failure.
+ *
+ * It also stands in for a cloud storage's direct uploads: the server issues a presigned URL, and
+ * the client PUTs the picture there (ImageController), signed with {@code app.storage.local.signing-key}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+public class LocalImageStorage implements ImageStorage, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalImageStorage.class);
+
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{32}\\.(jpg|png|gif|webp)");
+    private static final Pattern DIRECT_KEY = Pattern.compile("[0-9a-f]{32}");
+    private static final List<String> EXTENSIONS = List.of("jpg", "png", "gif", "webp");
+
+    // Presigned upload URLs are valid as long as Cloudinary's signed uploads
+    private static final Duration SIGNATURE_VALIDITY = Duration.ofHours(1);
+
+    // Redirects followed when fetching a picture from a URL, each target checked like the URL itself
+    private static final int MAX_REDIRECTS = 5;
+
+    /**
+     * Resolves the hosts the pictures are fetched from, refusing those with an address that is not public.
+     * Pictures are fetched from inside the network, where a loopback, link-local or private address would
+     * reach services that are not meant to be exposed. The client connects to the addresses returned here,
+     * without resolving the host again.
+     */
+    private static final DnsResolver PUBLIC_ADDRESSES = new DnsResolver() {
+
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            InetAddress[] addresses = SystemDefaultDnsResolver.INSTANCE.resolve(host);
+            for (InetAddress address : addresses) {
+                if (!isPublic(address)) {
+                    throw new IllegalArgumentException("The picture URL must point to a public address");
+                }
+            }
+            return addresses;
+        }
+
+        @Override
+        public String resolveCanonicalHostname(String host) throws UnknownHostException {
+            return SystemDefaultDnsResolver.INSTANCE.resolveCanonicalHostname(host);
+        }
+    };
+
+    private final Path directory;
+    private final String baseUrl;
+    private final byte[] signingKey;
+    private final long maxUploadSize;
+    private final Duration readTimeout;
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param directory      the directory holding the pictures, created if needed
+     * @param baseUrl        the URL the pictures are served from, followed by their key
+     * @param signingKey     the secret signing the direct uploads; a random one if empty
+     * @param maxUploadSize  the largest picture accepted through a direct upload or fetched from a URL
+     * @param connectTimeout how long to wait for a connection when fetching a picture from a URL
+     * @param readTimeout    how long fetching a picture from a URL may take, redirects and body included
+     * @throws IOException if the directory cannot be created
+     */
+    public LocalImageStorage(@Value("${app.storage.local.dir:images}") Path directory,
+                             @Value("${app.storage.local.base-url:/api/images/}") String baseUrl,
+                             @Value("${app.storage.local.signing-key:}") String signingKey,
+                             @Value("${app.storage.local.max-upload-size:10MB}") DataSize maxUploadSize,
+                             @Value("${app.storage.connect-timeout:5s}") Duration connectTimeout,
+                             @Value("${app.storage.read-timeout:30s}") Duration readTimeout) throws IOException {
+        this.directory = Files.createDirectories(directory).toAbsolutePath();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        if (signingKey.isEmpty()) {
+            logger.warn("app.storage.local.signing-key is not set: direct uploads only work on this instance, until it restarts");
+            this.signingKey = Signatures.randomKey();
+        } else {
+            this.signingKey = signingKey.getBytes(StandardCharsets.UTF_8);
+        }
+        this.maxUploadSize = maxUploadSize.toBytes();
+        this.readTimeout = readTimeout;
+        // No proxy, no automatic redirects: every connection goes to an address PUBLIC_ADDRESSES checked
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                .setDnsResolver(PUBLIC_ADDRESSES)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.of(connectTimeout))
+                    .setSocketTimeout(Timeout.of(readTimeout))
+                    .build())
+                .build())
+            .disableRedirectHandling()
+            .disableAutomaticRetries()
+            .disableCookieManagement()
+            .build();
+    }
+
+    @Override
+    public String store(Path file) throws IOException {
+        Path incoming = Files.createTempFile(directory, "incoming-", ".tmp");
+        try {
+            // Copied by the kernel on Linux, without passing through the heap
+            Files.copy(file, incoming, StandardCopyOption.REPLACE_EXISTING);
+            return publish(incoming);
+        } finally {
+            Files.deleteIfExists(incoming);
+        }
+    }
+
+    @Override
+    public String storeFrom(String url) throws IOException {
+        Path incoming = Files.createTempFile(directory, "incoming-", ".tmp");
+        try {
+            fetch(url, incoming);
+            return publish(incoming);
+        } finally {
+            Files.deleteIfExists(incoming);
+        }
+    }
+
+    @Override
+    public DirectUploadDTO prepareDirectUpload(String owner) {
+        String key = Signatures.issueKey(signingKey, owner);
+        Instant expires = Instant.now().plus(SIGNATURE_VALIDITY);
+        String signature = Signatures.sign(signingKey, "PUT\n" + key + "\n" + expires.getEpochSecond());
+        String url = baseUrl + key + "?expires=" + expires.getEpochSecond() + "&signature=" + signature;
+        return new DirectUploadDTO(url, "PUT", Map.of(), key, LocalDateTime.ofInstant(expires, ZoneId.systemDefault()));
+    }
+
+    @Override
+    public String verifyDirectUpload(String pictureRef, String owner) {
+        if (pictureRef == null || !DIRECT_KEY.matcher(pictureRef).matches()
+            || !Signatures.isIssuedTo(signingKey, pictureRef, owner)) {
+            throw new IllegalArgumentException("Unknown picture reference");
+        }
+        return findDirect(pictureRef)
+            .map(file -> baseUrl + file.getFileName())
+            .orElseThrow(() -> new IllegalArgumentException("The picture has not been uploaded"));
+    }
+
+    /**
+     * Receives a picture sent to a presigned upload URL.
+     *
+     * @param key       the key of the picture, from the URL
+     * @param expires   the expiry of the URL, in seconds since the epoch
+     * @param signature the signature of the URL
+     * @param body      the bytes of the picture
+     * @return the URL of the stored picture
+     * @throws SecurityException if the signature is wrong or expired
+     * @throws IllegalStateException if the picture was already uploaded
+     * @throws IllegalArgumentException if the body is not a picture, or is too large
+     * @throws IOException if the picture cannot be read or written
+     */
+    public String receive(String key, long expires, String signature, InputStream body) throws IOException {
+        if (key == null || !DIRECT_KEY.matcher(key).matches()
+            || !Signatures.matches(Signatures.sign(signingKey, "PUT\n" + key + "\n" + expires), signature)
+            || Instant.now().getEpochSecond() > expires) {
+            throw new SecurityException("Invalid or expired upload URL");
+        }
+        if (findDirect(key).isPresent()) {
+            throw new IllegalStateException("The picture has already been uploaded");
+        }
+
+        Path incoming = Files.createTempFile(directory, "incoming-", ".tmp");
+        try {
+            copy(body, incoming);
+            Path file = directory.resolve(key + "." + extension(incoming));
+            Files.move(incoming, file, StandardCopyOption.ATOMIC_MOVE);
+            return baseUrl + file.getFileName();
+        } finally {
+            Files.deleteIfExists(incoming);
+        }
+    }
+
+    /**
+     * Finds the file of a stored picture.
+     *
+     * @param key the key of the picture, as found at the end of its URL
+     * @return an Optional containing the file, or empty if the key is invalid or unknown
+     */
+    public Optional<Path> find(String key) {
+        if (key == null || !KEY.matcher(key).matches()) {
+            return Optional.empty();
+        }
+        Path file = directory.resolve(key);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    /**
+     * Copies a picture straight into a file, reading one byte more than allowed to detect oversized pictures.
+     *
+     * @param body the bytes of the picture
+     * @param file the file to write
+     * @throws IllegalArgumentException if the picture is larger than the upload limit
+     */
+    private void copy(InputStream body, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ReadableByteChannel source = Channels.newChannel(body);
+            long position = 0;
+            long transferred;
+            while (position <= maxUploadSize
+                && (transferred = channel.transferFrom(source, position, maxUploadSize + 1 - position)) > 0) {
+                position += transferred;
+            }
+            if (position > maxUploadSize) {
+                throw new IllegalArgumentException("The picture must not be larger than " + maxUploadSize + " bytes");
+            }
+        }
+    }
+
+    /**
+     * Downloads a picture into a file, following redirects, within the read timeout overall.
+     *
+     * A remote server that cannot be reached, fails, or is too slow says nothing about this storage: it is
+     * reported like a URL that does not lead to a picture, so that only the storage's own I/O counts
+     * against the circuit breaker of StorageBulkhead.
+     *
+     * @param url  the URL of the picture
+     * @param file the file to write
+     * @throws IllegalArgumentException if the picture cannot be fetched, or is not acceptable
+     * @throws IOException if the file cannot be written
+     */
+    private void fetch(String url, Path file) throws IOException {
+        URI uri = URI.create(url);
+        long deadline = System.nanoTime() + readTimeout.toNanos();
+        for (int redirects = 0; ; redirects++) {
+            checkFetchable(uri);
+            HttpGet request = new HttpGet(uri);
+            // Aborts the request at the deadline, even while a slow server trickles the body in
+            CompletableFuture<Void> abort = CompletableFuture.runAsync(request::cancel,
+                CompletableFuture.delayedExecutor(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            ClassicHttpResponse response = null;
+            try {
+                try {
+                    response = httpClient.executeOpen(null, request, null);
+                } catch (IOException e) {
+                    throw fetchFailed(url, request, e);
+                }
+                Header location = response.getFirstHeader(HttpHeaders.LOCATION);
+                if (isRedirect(response.getCode()) && location != null) {
+                    if (redirects == MAX_REDIRECTS) {
+                        throw new IllegalArgumentException("Too many redirects fetching " + url);
+                    }
+                    uri = uri.resolve(location.getValue());
+                    continue;
+                }
+                HttpEntity entity = response.getEntity();
+                if (response.getCode() != 200 || entity == null) {
+                    throw new IllegalArgumentException("Fetching " + url + " answered " + response.getCode());
+                }
+                if (entity.getContentLength() > maxUploadSize) {
+                    throw new IllegalArgumentException("The picture must not be larger than " + maxUploadSize + " bytes");
+                }
+                try (InputStream body = new RemoteBody(entity, url, request)) {
+                    copy(body, file);
+                }
+                return;
+            } finally {
+                abort.cancel(false);
+                // The connection is discarded anyway if it cannot be closed cleanly
+                Closer.closeQuietly(response);
+            }
+        }
+    }
+
+    /**
+     * Reports a failure to fetch a picture, telling a request aborted at the deadline from other failures.
+     */
+    private IllegalArgumentException fetchFailed(String url, HttpGet request, IOException e) {
+        if (request.isCancelled()) {
+            return new IllegalArgumentException("Fetching " + url + " took longer than " + readTimeout.toSeconds() + " s", e);
+        }
+        return new IllegalArgumentException("Failed to fetch " + url + ": " + e.getMessage(), e);
+    }
+
+    /**
+     * The body of a picture fetched from a URL, whose read failures are reported by fetchFailed. Reading
+     * it into a file then only raises an IOException for the file.
+     */
+    private final class RemoteBody extends FilterInputStream {
+
+        private final String url;
+        private final HttpGet request;
+
+        RemoteBody(HttpEntity entity, String url, HttpGet request) {
+            super(null);
+            this.url = url;
+            this.request = request;
+            try {
+                in = entity.getContent();
+            } catch (IOException e) {
+                throw fetchFailed(url, request, e);
+            }
+        }
+
+        @Override
+        public int read() {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw fetchFailed(url, request, e);
+            }
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            try {
+                return super.read(buffer, offset, length);
+            } catch (IOException e) {
+                throw fetchFailed(url, request, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            Closer.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Checks that a URL may be fetched: over http or https, from a named host. Its addresses are checked
+     * by PUBLIC_ADDRESSES when the connection is made.
+     *
+     * @param uri the URL to fetch
+     * @throws IllegalArgumentException if the URL may not be fetched
+     */
+    private static void checkFetchable(URI uri) {
+        String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+        if (!(scheme.equals("http") || scheme.equals("https")) || uri.getHost() == null) {
+            throw new IllegalArgumentException("Only http and https picture URLs are accepted");
+        }
+    }
+
+    /**
+     * Tells whether an address can be reached from the internet.
+     */
+    private static boolean isPublic(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+            || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (bytes.length == 16) {
+            // IPv6 unique local addresses, fc00::/7
+            return (bytes[0] & 0xfe) != 0xfc;
+        }
+        // IPv4 shared address space of carrier-grade NATs, 100.64.0.0/10
+        return !((bytes[0] & 0xff) == 100 && (bytes[1] & 0xc0) == 64);
+    }
+
+    private static boolean isRedirect(int statusCode) {
+        return statusCode == 301 || statusCode == 302 || statusCode == 303 || statusCode == 307 || statusCode == 308;
+    }
+
+    /**
+     * Finds the file of a picture sent through a direct upload, whatever its format.
+     */
+    private Optional<Path> findDirect(String key) {
+        return EXTENSIONS.stream()
+            .map(extension -> directory.resolve(key + "." + extension))
+            .filter(Files::isRegularFile)
+            .findFirst();
+    }
+
+    /**
+     * Moves a complete picture under its key.
+     *
+     * @param incoming the temporary file holding the picture
+     * @return the URL of the stored picture
+     */
+    private String publish(Path incoming) throws IOException {
+        String key = UUID.randomUUID().toString().replace("-", "") + "." + extension(incoming);
+        Files.move(incoming, directory.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+        return baseUrl + key;
+    }
+
+    /**
+     * Recognizes the format of a picture from its first bytes.
+     *
+     * @param file the picture file
+     * @return the file extension of the format
+     * @throws IllegalArgumentException if the file is not a JPEG, PNG, GIF or WebP picture
+     */
+    private static String extension(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(12);
+        try (FileChannel channel = FileChannel.open(file)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Read until the header is full or the file ends
+            }
+        }
+        byte[] b = header.array();
+        int n = header.position();
+        if (n >= 3 && (b[0] & 0xff) == 0xff && (b[1] & 0xff) == 0xd8 && (b[2] & 0xff) == 0xff) {
+            return "jpg";
+        }
+        if (n >= 8 && (b[0] & 0xff) == 0x89 && b[1] == 'P' && b[2] == 'N' && b[3] == 'G') {
+            return "png";
+        }
+        if (n >= 4 && b[0] == 'G' && b[1] == 'I' && b[2] == 'F' && b[3] == '8') {
+            return "gif";
+        }
+        if (n >= 12 && b[0] == 'R' && b[1] == 'I' && b[2] == 'F' && b[3] == 'F'
+            && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') {
+            return "webp";
+        }
+        throw new IllegalArgumentException("Not a JPEG, PNG, GIF or WebP picture");
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        httpClient.close();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.rental_backend.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+
+/**
+ * HMAC-SHA256 signatures binding direct uploads to the user they were issued to, and the tokens the
+ * server hands out to clients to the server that issued them.
+ */
+public final class Signatures {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private Signatures() {
+    }
+
+    /**
+     * Signs a value.
+     *
+     * @param key  the secret key
+     * @param data the value to sign
+     * @return the lowercase hexadecimal signature
+     */
+    public static String sign(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Compares a signature in constant time, so its value cannot be guessed from response times.
+     *
+     * @param expected the signature computed here
+     * @param actual   the signature received
+     * @return true if they are equal
+     */
+    public static boolean matches(String expected, String actual) {
+        return actual != null && MessageDigest.isEqual(
+            expected.getBytes(StandardCharsets.UTF_8), actual.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Issues a new key for a direct upload: 16 random hexadecimal digits, followed by 16 digits
+     * of their signature with the owner, so the key can only be claimed by that owner.
+     *
+     * @param secret the secret key
+     * @param owner  the email of the user the upload is issued to
+     * @return the new key
+     */
+    static String issueKey(byte[] secret, String owner) {
+        byte[] random = new byte[8];
+        RANDOM.nextBytes(random);
+        String nonce = HexFormat.of().formatHex(random);
+        return nonce + sign(secret, owner + "\n" + nonce).substring(0, 16);
+    }
+
+    /**
+     * Checks that a key was issued to an owner by issueKey.
+     *
+     * @param secret the secret key
+     * @param key    the key, 32 hexadecimal digits
+     * @param owner  the email of the user claiming the key
+     * @return true if the key was issued to that owner
+     */
+    static boolean isIssuedTo(byte[] secret, String key, String owner) {
+        return key != null && key.length() == 32
+            && matches(sign(secret, owner + "\n" + key.substring(0, 16)).substring(0, 16), key.substring(16));
+    }
+
+    /**
+     * Generates a random secret key, for deployments that do not configure one.
+     *
+     * @return 32 random bytes
+     */
+    public static byte[] randomKey() {
+        byte[] key = new byte[32];
+        RANDOM.nextBytes(key);
+        return key;
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.rental_backend.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Isolates the calls to the image storage, so a slow or failing storage cannot tie up the rest of the application.
+ *
+ * At most {@code max-concurrent} calls run at once and at most {@code max-queued} wait for their turn, each no
+ * longer than {@code max-wait}. A call not answered within {@code call-timeout} is abandoned: its thread is
+ * interrupted, which closes the socket it is blocked on. After {@code failure-threshold} failed calls in a row
+ * the circuit opens and calls are refused for {@code open-duration}; a single trial call then decides whether
+ * it closes again. Refused calls fail at once with a StorageUnavailableException.
+ */
+@Component
+public class StorageBulkhead implements DisposableBean {
+
+    private enum State { CLOSED, HALF_OPEN, OPEN }
+
+    /**
+     * A call to the storage.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface StorageCall<T> {
+        T call() throws IOException;
+    }
+
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final Duration callTimeout;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ExecutorService executor;
+
+    // Circuit breaker, guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openUntil = Instant.MIN;
+    private boolean trialRunning;
+
+    private final Counter queueFullRejections;
+    private final Counter waitTimeoutRejections;
+    private final Counter circuitOpenRejections;
+    private final Timer successfulCalls;
+    private final Timer failedCalls;
+    private final Timer timedOutCalls;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param meterRegistry    the registry receiving the saturation and call metrics
+     * @param maxConcurrent    the maximum number of calls running at the same time
+     * @param maxQueued        the maximum number of calls waiting for their turn
+     * @param maxWait          how long a call may wait for its turn
+     * @param callTimeout      how long a call may run before it is abandoned
+     * @param failureThreshold the number of failed calls in a row that opens the circuit
+     * @param openDuration     how long the circuit stays open before a trial call
+     */
+    public StorageBulkhead(MeterRegistry meterRegistry,
+                           @Value("${app.storage.bulkhead.max-concurrent:8}") int maxConcurrent,
+                           @Value("${app.storage.bulkhead.max-queued:100}") int maxQueued,
+                           @Value("${app.storage.bulkhead.max-wait:30s}") Duration maxWait,
+                           @Value("${app.storage.call-timeout:60s}") Duration callTimeout,
+                           @Value("${app.storage.circuit.failure-threshold:5}") int failureThreshold,
+                           @Value("${app.storage.circuit.open-duration:30s}") Duration openDuration) {
+        this.maxQueued = maxQueued;
+        this.maxWait = maxWait;
+        this.callTimeout = callTimeout;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.permits = new Semaphore(maxConcurrent);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("storage-call-", 0).factory());
+
+        Gauge.builder("storage.bulkhead.active", permits, p -> maxConcurrent - p.availablePermits())
+            .description("Storage calls running")
+            .register(meterRegistry);
+        Gauge.builder("storage.bulkhead.queued", queued, AtomicInteger::get)
+            .description("Storage calls waiting for their turn")
+            .register(meterRegistry);
+        Gauge.builder("storage.bulkhead.saturation", this, b -> b.saturation(maxConcurrent))
+            .description("Share of the bulkhead in use, running and waiting calls together")
+            .register(meterRegistry);
+        Gauge.builder("storage.circuit.state", this, b -> b.state().ordinal())
+            .description("State of the storage circuit breaker: 0 closed, 1 half-open, 2 open")
+            .register(meterRegistry);
+        this.queueFullRejections = rejections(meterRegistry, "queue_full");
+        this.waitTimeoutRejections = rejections(meterRegistry, "wait_timeout");
+        this.circuitOpenRejections = rejections(meterRegistry, "circuit_open");
+        this.successfulCalls = calls(meterRegistry, "success");
+        this.failedCalls = calls(meterRegistry, "failure");
+        this.timedOutCalls = calls(meterRegistry, "timeout");
+    }
+
+    /**
+     * Checks that the storage accepts work, before committing to a task that will need it.
+     * This reserves nothing: the calls of the task may still be refused when they run, and are then retried by the caller.
+     *
+     * @throws StorageUnavailableException if the circuit is open or the queue is full
+     */
+    public void checkAvailable() {
+        synchronized (this) {
+            Duration closesIn = Duration.between(Instant.now(), openUntil);
+            if (state == State.OPEN && closesIn.isPositive()) {
+                throw rejected(circuitOpenRejections, "The picture storage is failing", closesIn);
+            }
+        }
+        if (queued.get() >= maxQueued) {
+            throw rejected(queueFullRejections, "Too many pictures are waiting for the storage", maxWait);
+        }
+    }
+
+    /**
+     * Runs a call to the storage within the bulkhead.
+     *
+     * @param call the call
+     * @param <T>  the type of the result
+     * @return the result of the call
+     * @throws StorageUnavailableException if the call is refused
+     * @throws IOException if the call fails or times out
+     * @throws InterruptedException if interrupted while waiting for the call
+     */
+    public <T> T call(StorageCall<T> call) throws IOException, InterruptedException {
+        boolean trial = admit();
+        try {
+            if (queued.incrementAndGet() > maxQueued) {
+                queued.decrementAndGet();
+                throw rejected(queueFullRejections, "Too many pictures are waiting for the storage", maxWait);
+            }
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            } finally {
+                queued.decrementAndGet();
+            }
+            if (!acquired) {
+                throw rejected(waitTimeoutRejections, "Timed out waiting for the storage", maxWait);
+            }
+            return run(call);
+        } finally {
+            if (trial) {
+                synchronized (this) {
+                    trialRunning = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs an admitted call on its own thread, waiting for it no longer than the call timeout.
+     * The permit is released by that thread when the call really ends, so abandoned calls still count.
+     */
+    private <T> T run(StorageCall<T> call) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                try {
+                    return call.call();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+
+        try {
+            T result = future.get(callTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            onSuccess();
+            successfulCalls.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            onFailure();
+            timedOutCalls.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw new IOException("The storage did not answer within " + callTimeout.toMillis() + " ms");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                // Only I/O errors tell about the storage's health; others are about the picture itself
+                onFailure();
+                failedCalls.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw io;
+            }
+            onSuccess();
+            failedCalls.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Lets a call through the circuit breaker.
+     *
+     * @return true if the call is the trial of a half-open circuit
+     */
+    private synchronized boolean admit() {
+        if (state == State.OPEN) {
+            Duration closesIn = Duration.between(Instant.now(), openUntil);
+            if (closesIn.isPositive()) {
+                throw rejected(circuitOpenRejections, "The picture storage is failing", closesIn);
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialRunning) {
+                throw rejected(circuitOpenRejections, "The picture storage is failing", openDuration);
+            }
+            trialRunning = true;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openUntil = Instant.now().plus(openDuration);
+        }
+    }
+
+    private synchronized State state() {
+        return state == State.OPEN && !openUntil.isAfter(Instant.now()) ? State.HALF_OPEN : state;
+    }
+
+    private double saturation(int maxConcurrent) {
+        int active = maxConcurrent - permits.availablePermits();
+        return (double) (active + queued.get()) / (maxConcurrent + maxQueued);
+    }
+
+    private static StorageUnavailableException rejected(Counter counter, String message, Duration retryAfter) {
+        counter.increment();
+        return new StorageUnavailableException(message, retryAfter);
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("storage.bulkhead.rejected")
+            .description("Storage calls refused by the bulkhead or the circuit breaker")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
+    private static Timer calls(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("storage.calls")
+            .description("Duration of the storage calls")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
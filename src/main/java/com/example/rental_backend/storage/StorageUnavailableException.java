@@ -0,0 +1,31 @@
+package com.example.rental_backend.storage;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the image storage does not accept more work: its bulkhead is saturated or its
+ * circuit breaker is open. Callers are expected to retry after the given delay.
+ */
+public class StorageUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    /**
+     * Creates the exception.
+     *
+     * @param message    the reason the storage is unavailable
+     * @param retryAfter how long the caller should wait before retrying
+     */
+    public StorageUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Gets how long the caller should wait before retrying.
+     * @return the delay before retrying
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.rental_backend;
+
+import com.example.rental_backend.service.PictureSpool;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the heap allocated by concurrent picture uploads when the picture is read with
+ * MultipartFile.getBytes() and when it is moved to the PictureSpool and streamed from disk.
+ *
+ * Each upload starts from a part file on disk, as the servlet container leaves it with
+ * file-size-threshold=0, and ends by sending the picture to a storage that discards it.
+ *
+ * Not a unit test (surefire does not pick it up): run its main method from the IDE, or with `java`
+ * on the test classpath after `mvn test-compile`. Optional arguments: concurrent uploads (default 50)
+ * and picture size in MB (default 5).
+ */
+public class PictureSpoolBenchmark {
+
+    // Buffer used to send a spooled picture, allocated once per uploading thread
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(64 * 1024));
+
+    public static void main(String[] args) throws Exception {
+        int uploads = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int size = (args.length > 1 ? Integer.parseInt(args[1]) : 5) * 1024 * 1024;
+        Path parts = Files.createTempDirectory("parts");
+        PictureSpool spool = new PictureSpool(Files.createTempDirectory("spool"));
+
+        System.out.printf("%d concurrent uploads of %d MB%n", uploads, size / (1024 * 1024));
+        System.out.printf("%-9s %14s %16s %10s%n", "mode", "allocated MB", "per upload KB", "ms");
+        for (int round = 0; round < 2; round++) { // The first round warms up both paths
+            for (String mode : List.of("getBytes", "spool")) {
+                AtomicLong allocated = new AtomicLong();
+                ExecutorService executor = Executors.newFixedThreadPool(uploads);
+                List<Future<?>> done = new ArrayList<>();
+                long start = System.nanoTime();
+                for (int i = 0; i < uploads; i++) {
+                    Path part = createPart(parts, size);
+                    done.add(executor.submit(() -> {
+                        long before = allocatedBytes();
+                        if (mode.equals("getBytes")) {
+                            byte[] bytes = new PartFile(part).getBytes();
+                            send(bytes);
+                            Files.delete(part);
+                        } else {
+                            Path spooled = spool.spool(new PartFile(part));
+                            send(spooled);
+                            spool.release(spooled);
+                        }
+                        allocated.addAndGet(allocatedBytes() - before);
+                        return null;
+                    }));
+                }
+                for (Future<?> upload : done) {
+                    upload.get();
+                }
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                executor.shutdown();
+                if (round == 1) {
+                    System.out.printf("%-9s %14.1f %16.1f %10d%n", mode, allocated.get() / 1048576.0,
+                        allocated.get() / 1024.0 / uploads, millis);
+                }
+            }
+        }
+    }
+
+    private static Path createPart(Path directory, int size) throws IOException {
+        byte[] chunk = new byte[64 * 1024];
+        ThreadLocalRandom.current().nextBytes(chunk);
+        Path part = Files.createTempFile(directory, "part-", ".tmp");
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+            for (int written = 0; written < size; written += chunk.length) {
+                channel.write(ByteBuffer.wrap(chunk));
+            }
+        }
+        return part;
+    }
+
+    private static void send(byte[] picture) {
+        // A storage discarding what it receives
+        if (picture.length < 0) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static void send(Path picture) throws IOException {
+        ByteBuffer buffer = BUFFER.get();
+        try (FileChannel channel = FileChannel.open(picture)) {
+            while (channel.read(buffer.clear()) >= 0) {
+                buffer.flip(); // A storage discarding what it receives
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Part file left on disk by the container; transferTo renames it, like Tomcat does.
+     */
+    private record PartFile(Path part) implements MultipartFile {
+
+        @Override
+        public String getName() {
+            return "picture";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return "picture.jpg";
+        }
+
+        @Override
+        public String getContentType() {
+            return "image/jpeg";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return getSize() == 0;
+        }
+
+        @Override
+        public long getSize() {
+            try {
+                return Files.size(part);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            return Files.readAllBytes(part);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(part);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.move(part, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.rental_backend;
+
+import com.example.rental_backend.dto.RentalDTO;
+import com.example.rental_backend.dto.RentalsWrapperDTO;
+import com.example.rental_backend.model.PictureStatus;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the encode/decode cost and payload size of a page of rentals in JSON, CBOR and Smile,
+ * using mappers configured like the application's message converters.
+ *
+ * Not a unit test (surefire does not pick it up): run its main method from the IDE, or with `java`
+ * on the test classpath after `mvn test-compile`. Optional arguments: page size (default 100)
+ * and iterations (default 20000).
+ */
+public class RentalsWrapperCodecBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int pageSize = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        RentalsWrapperDTO page = samplePage(pageSize);
+
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("json", mapper(null));
+        mappers.put("cbor", mapper(new CBORFactory()));
+        mappers.put("smile", mapper(new SmileFactory()));
+
+        System.out.printf("%d rentals per page, %d iterations%n", pageSize, iterations);
+        System.out.printf("%-6s %10s %14s %14s%n", "format", "bytes", "encode us/op", "decode us/op");
+        for (Map.Entry<String, ObjectMapper> entry : mappers.entrySet()) {
+            ObjectMapper mapper = entry.getValue();
+            byte[] payload = mapper.writeValueAsBytes(page);
+
+            // Warm up both paths before measuring
+            for (int i = 0; i < iterations / 2; i++) {
+                mapper.readValue(mapper.writeValueAsBytes(page), RentalsWrapperDTO.class);
+            }
+
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += mapper.writeValueAsBytes(page).length;
+            }
+            double encode = (System.nanoTime() - start) / 1_000.0 / iterations;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += mapper.readValue(payload, RentalsWrapperDTO.class).getRentals().size();
+            }
+            double decode = (System.nanoTime() - start) / 1_000.0 / iterations;
+
+            System.out.printf("%-6s %10d %14.2f %14.2f%n", entry.getKey(), payload.length, encode, decode);
+            if (sink == 0) {
+                System.out.println(); // Keeps the measured results observable
+            }
+        }
+    }
+
+    private static ObjectMapper mapper(JsonFactory factory) {
+        // Same defaults as Spring Boot's auto-configured builder
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (factory != null) {
+            builder.factory(factory);
+        }
+        return builder.build();
+    }
+
+    private static RentalsWrapperDTO samplePage(int size) {
+        List<RentalDTO> rentals = new ArrayList<>(size);
+        LocalDateTime now = LocalDateTime.of(2024, 6, 1, 12, 0);
+        for (int i = 0; i < size; i++) {
+            rentals.add(new RentalDTO((long) i + 1, "Rental " + i, 20 + i % 80, 300.0 + i * 7.5,
+                "https://res.cloudinary.com/demo/image/upload/v1/rentals/picture_" + i + ".jpg",
+                "Bright apartment close to the city centre, fully furnished, with a balcony and a view on the park.",
+                (long) (i % 13) + 1, now.minusDays(i), now.minusHours(i), (long) i % 4,
+                PictureStatus.READY, Map.of(200, "https://res.cloudinary.com/demo/image/upload/w_200/" + i + ".jpg")));
+        }
+        return new RentalsWrapperDTO(rentals, "cHJpY2V8MzAwLjB8NDI");
+    }
+}
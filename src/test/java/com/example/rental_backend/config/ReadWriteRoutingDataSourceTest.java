@@ -0,0 +1,188 @@
+package com.example.rental_backend.config;
+
+import com.example.rental_backend.storage.Signatures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Routes transactions between two embedded H2 databases standing in for the primary and a replica.
+ * Each database holds a single row naming it, so every read tells which one served it.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private static final Duration WINDOW = Duration.ofSeconds(5);
+    private static final byte[] KEY = "a-secret-for-tests".getBytes();
+
+    private final MutableClock clock = new MutableClock();
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource primary = database("primary");
+        DriverManagerDataSource replica = database("replica");
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(
+            primary, List.of(replica), new ReadYourWrites(WINDOW, KEY, clock));
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void routesReadOnlyTransactionsToReplicaAndOthersToPrimary() {
+        assertEquals("replica", readOnly.execute(status -> whoAmI()));
+        assertEquals("primary", readWrite.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void pinsReadsToPrimaryAfterWriteAndIssuesToken() {
+        MockHttpServletResponse response = bindRequest(new MockHttpServletRequest());
+
+        readWrite.executeWithoutResult(status -> jdbc.update("UPDATE SERVER SET WRITES = WRITES + 1"));
+
+        String token = response.getHeader(ReadYourWrites.HEADER);
+        assertNotNull(token);
+        assertEquals("primary", readOnly.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void honoursTokenOnLaterRequestsUntilItExpires() {
+        bindRequest(new MockHttpServletRequest());
+        readWrite.executeWithoutResult(status -> jdbc.update("UPDATE SERVER SET WRITES = WRITES + 1"));
+        String token = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes())
+            .getResponse().getHeader(ReadYourWrites.HEADER);
+
+        MockHttpServletRequest next = new MockHttpServletRequest();
+        next.addHeader(ReadYourWrites.HEADER, token);
+        bindRequest(next);
+        assertEquals("primary", readOnly.execute(status -> whoAmI()));
+
+        clock.advance(WINDOW.plusMillis(1));
+        MockHttpServletRequest later = new MockHttpServletRequest();
+        later.addHeader(ReadYourWrites.HEADER, token);
+        bindRequest(later);
+        assertEquals("replica", readOnly.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void ignoresMalformedAndFarFutureTokens() {
+        MockHttpServletRequest malformed = new MockHttpServletRequest();
+        malformed.addHeader(ReadYourWrites.HEADER, "not-a-token");
+        bindRequest(malformed);
+        assertEquals("replica", readOnly.execute(status -> whoAmI()));
+
+        MockHttpServletRequest forged = new MockHttpServletRequest();
+        forged.addHeader(ReadYourWrites.HEADER, Long.toString(clock.millis() + WINDOW.toMillis() * 10));
+        bindRequest(forged);
+        assertEquals("replica", readOnly.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void ignoresTokensNotSignedWithTheKey() {
+        String until = Long.toString(clock.millis() + WINDOW.toMillis());
+        String unsigned = until;
+        String signedElsewhere = until + "." + Signatures.sign("another-secret".getBytes(), "read-your-writes\n" + until);
+        String issued = issueToken();
+        // The signature of a real token, moved to a later expiry
+        String extended = (clock.millis() + WINDOW.toMillis() + 1000) + issued.substring(issued.indexOf('.'));
+
+        for (String token : List.of(unsigned, signedElsewhere, extended)) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.addHeader(ReadYourWrites.HEADER, token);
+            bindRequest(request);
+            assertEquals("replica", readOnly.execute(status -> whoAmI()), token);
+        }
+    }
+
+    @Test
+    void readOnlyTransactionsDoNotIssueTokens() {
+        MockHttpServletResponse response = bindRequest(new MockHttpServletRequest());
+        readOnly.execute(status -> whoAmI());
+        assertNull(response.getHeader(ReadYourWrites.HEADER));
+    }
+
+    /**
+     * Writes in a request of its own and returns the token it earned.
+     */
+    private String issueToken() {
+        MockHttpServletResponse response = bindRequest(new MockHttpServletRequest());
+        readWrite.executeWithoutResult(status -> jdbc.update("UPDATE SERVER SET WRITES = WRITES + 1"));
+        return response.getHeader(ReadYourWrites.HEADER);
+    }
+
+    private String whoAmI() {
+        return jdbc.queryForObject("SELECT NAME FROM SERVER", String.class);
+    }
+
+    private static MockHttpServletResponse bindRequest(MockHttpServletRequest request) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        return response;
+    }
+
+    private static DriverManagerDataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS SERVER (NAME VARCHAR(16), WRITES INT)");
+        jdbc.update("DELETE FROM SERVER");
+        jdbc.update("INSERT INTO SERVER VALUES (?, 0)", name);
+        return dataSource;
+    }
+
+    /**
+     * Clock that only moves when told to.
+     */
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
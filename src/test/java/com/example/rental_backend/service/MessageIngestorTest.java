@@ -0,0 +1,250 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.dto.MessageDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Feeds messages to the ingestor with a mocked MessageService, and checks how they are gathered into
+ * batches and what each sender is told when a batch, or a message in it, fails.
+ */
+class MessageIngestorTest {
+
+    private final MessageService messageService = mock(MessageService.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // The contents of each call to sendMessages, in order
+    private final List<List<String>> calls = new CopyOnWriteArrayList<>();
+    private MessageIngestor ingestor;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (ingestor != null) {
+            ingestor.destroy();
+        }
+    }
+
+    @Test
+    void messagesArrivingTogetherAreStoredInOneBatch() throws Exception {
+        answer(this::storeAll);
+        ingestor = ingestor(100, 10, Duration.ofMillis(200));
+
+        List<CompletableFuture<MessageDTO>> futures = List.of(
+            ingestor.submit(message("a")), ingestor.submit(message("b")), ingestor.submit(message("c")));
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(List.of("a", "b", "c").get(i), futures.get(i).get(1, TimeUnit.SECONDS).getMessage());
+        }
+        assertEquals(List.of(List.of("a", "b", "c")), calls);
+        assertEquals(1, meterRegistry.get("messages.ingest.batch.size").summary().count());
+    }
+
+    @Test
+    void batchesAreCutAtTheBatchSize() throws Exception {
+        answer(this::storeAll);
+        ingestor = ingestor(100, 2, Duration.ofMillis(200));
+
+        List<CompletableFuture<MessageDTO>> futures = new ArrayList<>();
+        for (String content : List.of("a", "b", "c", "d", "e")) {
+            futures.add(ingestor.submit(message(content)));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(2, TimeUnit.SECONDS);
+
+        assertEquals(5, calls.stream().mapToInt(List::size).sum());
+        assertTrue(calls.stream().allMatch(call -> call.size() <= 2));
+    }
+
+    @Test
+    void rejectedMessageFailsAloneInItsBatch() throws Exception {
+        when(messageService.sendMessages(any(), any())).thenAnswer(invocation -> {
+            List<MessageDTO> messages = invocation.getArgument(0);
+            BiConsumer<Integer, String> onRejected = invocation.getArgument(1);
+            record(messages);
+            List<MessageDTO> stored = new ArrayList<>();
+            for (int i = 0; i < messages.size(); i++) {
+                if (messages.get(i).getMessage().equals("unknown rental")) {
+                    onRejected.accept(i, "Rental not found");
+                    stored.add(null);
+                } else {
+                    stored.add(messages.get(i));
+                }
+            }
+            return stored;
+        });
+        ingestor = ingestor(100, 10, Duration.ofMillis(200));
+
+        CompletableFuture<MessageDTO> good = ingestor.submit(message("hello"));
+        CompletableFuture<MessageDTO> bad = ingestor.submit(message("unknown rental"));
+
+        assertEquals("hello", good.get(1, TimeUnit.SECONDS).getMessage());
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> bad.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, rejected.getCause());
+        assertEquals("Rental not found", rejected.getCause().getMessage());
+        assertEquals(1, calls.size());
+    }
+
+    @Test
+    void constraintViolationFallsBackToOneMessageAtATime() throws Exception {
+        answer(messages -> {
+            if (messages.stream().anyMatch(message -> message.getMessage().equals("too long"))) {
+                throw new DataIntegrityViolationException("Value too long");
+            }
+            return storeAll(messages);
+        });
+        ingestor = ingestor(100, 10, Duration.ofMillis(200));
+
+        CompletableFuture<MessageDTO> first = ingestor.submit(message("a"));
+        CompletableFuture<MessageDTO> faulty = ingestor.submit(message("too long"));
+        CompletableFuture<MessageDTO> last = ingestor.submit(message("c"));
+
+        assertEquals("a", first.get(1, TimeUnit.SECONDS).getMessage());
+        assertEquals("c", last.get(1, TimeUnit.SECONDS).getMessage());
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> faulty.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(DataIntegrityViolationException.class, failed.getCause());
+        assertEquals(List.of(List.of("a", "too long", "c"), List.of("a"), List.of("too long"), List.of("c")), calls);
+    }
+
+    @Test
+    void transientFailureFailsTheWholeBatchAtOnce() throws Exception {
+        answer(messages -> {
+            throw new TransientDataAccessResourceException("Connection refused");
+        });
+        ingestor = ingestor(100, 10, Duration.ofMillis(200));
+
+        List<CompletableFuture<MessageDTO>> futures = List.of(ingestor.submit(message("a")), ingestor.submit(message("b")));
+
+        for (CompletableFuture<MessageDTO> future : futures) {
+            ExecutionException failed = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+            assertInstanceOf(TransientDataAccessResourceException.class, failed.getCause());
+        }
+        // No message was retried on its own
+        assertEquals(List.of(List.of("a", "b")), calls);
+    }
+
+    @Test
+    void writerSurvivesAnError() throws Exception {
+        answer(messages -> {
+            if (calls.size() == 1) {
+                throw new StackOverflowError();
+            }
+            return storeAll(messages);
+        });
+        ingestor = ingestor(100, 10, Duration.ofMillis(1));
+
+        CompletableFuture<MessageDTO> lost = ingestor.submit(message("a"));
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> lost.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(StackOverflowError.class, failed.getCause());
+
+        assertEquals("b", ingestor.submit(message("b")).get(1, TimeUnit.SECONDS).getMessage());
+    }
+
+    @Test
+    void messagesAreRefusedOnceTheQueueIsFull() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        answer(messages -> {
+            writing.countDown();
+            await(release);
+            return storeAll(messages);
+        });
+        ingestor = ingestor(1, 1, Duration.ofMillis(1));
+
+        CompletableFuture<MessageDTO> first = ingestor.submit(message("a"));
+        assertTrue(writing.await(1, TimeUnit.SECONDS));
+        CompletableFuture<MessageDTO> queued = ingestor.submit(message("b"));
+
+        assertThrows(RejectedExecutionException.class, () -> ingestor.submit(message("c")));
+        assertEquals(1, meterRegistry.counter("messages.ingest.rejected").count());
+
+        release.countDown();
+        assertEquals("a", first.get(1, TimeUnit.SECONDS).getMessage());
+        assertEquals("b", queued.get(1, TimeUnit.SECONDS).getMessage());
+    }
+
+    @Test
+    void waitingMessagesAreStoredOnShutdown() throws Exception {
+        answer(this::storeAll);
+        ingestor = ingestor(100, 10, Duration.ofMillis(500));
+
+        CompletableFuture<MessageDTO> waiting = ingestor.submit(message("a"));
+        ingestor.destroy();
+
+        assertTrue(waiting.isDone());
+        assertEquals("a", waiting.get().getMessage());
+        assertThrows(RejectedExecutionException.class, () -> ingestor.submit(message("b")));
+    }
+
+    @Test
+    void incompleteMessagesAreRefusedAtOnce() {
+        ingestor = ingestor(100, 10, Duration.ofMillis(1));
+        MessageDTO noRental = message("a");
+        noRental.setRentalId(null);
+
+        assertThrows(IllegalArgumentException.class, () -> ingestor.submit(message(null)));
+        assertThrows(IllegalArgumentException.class, () -> ingestor.submit(noRental));
+        assertEquals(List.of(), calls);
+    }
+
+    private MessageIngestor ingestor(int queueCapacity, int batchSize, Duration maxDelay) {
+        return new MessageIngestor(messageService, meterRegistry, queueCapacity, batchSize, maxDelay);
+    }
+
+    /**
+     * Makes sendMessages record its messages, then answer with the given function.
+     */
+    private void answer(Function<List<MessageDTO>, List<MessageDTO>> answer) {
+        when(messageService.sendMessages(any(), any())).thenAnswer(invocation -> {
+            List<MessageDTO> messages = invocation.getArgument(0);
+            record(messages);
+            return answer.apply(messages);
+        });
+    }
+
+    private void record(List<MessageDTO> messages) {
+        calls.add(messages.stream().map(MessageDTO::getMessage).toList());
+    }
+
+    private List<MessageDTO> storeAll(List<MessageDTO> messages) {
+        return messages;
+    }
+
+    private static MessageDTO message(String content) {
+        MessageDTO message = new MessageDTO();
+        message.setMessage(content);
+        message.setUserId(1L);
+        message.setRentalId(2L);
+        return message;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
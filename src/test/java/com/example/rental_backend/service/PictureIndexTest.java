@@ -0,0 +1,40 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.dto.PictureDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Records the same picture content twice against an embedded H2 database, and checks that the first
+ * record is the one kept.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import(PictureIndex.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PictureIndexTest {
+
+    private static final String HASH = "a".repeat(64);
+
+    @Autowired private PictureIndex pictureIndex;
+
+    @Test
+    void secondRecordOfTheSameContentKeepsTheFirst() {
+        pictureIndex.record(HASH, "https://storage.example.com/first.jpg", Map.of(320, "https://storage.example.com/first-320.jpg"));
+        pictureIndex.record(HASH, "https://storage.example.com/second.jpg", Map.of(320, "https://storage.example.com/second-320.jpg"));
+
+        PictureDTO picture = pictureIndex.find(HASH.toUpperCase()).orElseThrow();
+        assertEquals("https://storage.example.com/first.jpg", picture.getPicture());
+        assertEquals(Map.of(320, "https://storage.example.com/first-320.jpg"), picture.getPictureVariants());
+    }
+}
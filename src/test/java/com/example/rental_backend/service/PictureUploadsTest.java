@@ -0,0 +1,267 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.dto.UploadDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sends pictures in chunks through the resumable upload protocol: each chunk must start at the offset
+ * the server reports, an interrupted upload resumes there, and an upload is claimed only once complete,
+ * then dropped when the rental is committed or given back when it is not.
+ */
+class PictureUploadsTest {
+
+    private static final String OWNER = "owner@example.com";
+
+    @TempDir
+    Path spoolDir;
+
+    private final ExecutorService senders = Executors.newCachedThreadPool();
+    private PictureSpool pictureSpool;
+    private PictureUploads pictureUploads;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        pictureSpool = new PictureSpool(spoolDir);
+        pictureUploads = uploads(Duration.ofHours(1), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        senders.shutdownNow();
+    }
+
+    @Test
+    void chunksAreAppendedAtTheCurrentOffset() throws IOException {
+        UploadDTO upload = pictureUploads.create(6L, OWNER);
+
+        assertEquals(0, upload.getOffset());
+        assertEquals(3, pictureUploads.append(upload.getId(), 0L, chunk("abc"), OWNER).getOffset());
+        assertEquals(6, pictureUploads.append(upload.getId(), 3L, chunk("def"), OWNER).getOffset());
+
+        Path file = pictureUploads.claim(upload.getId(), OWNER);
+        assertArrayEquals("abcdef".getBytes(), Files.readAllBytes(file));
+    }
+
+    @Test
+    void chunkAtAnotherOffsetIsAConflict() throws IOException {
+        UploadDTO upload = pictureUploads.create(6L, OWNER);
+        pictureUploads.append(upload.getId(), 0L, chunk("abc"), OWNER);
+
+        IllegalStateException conflict = assertThrows(IllegalStateException.class,
+            () -> pictureUploads.append(upload.getId(), 0L, chunk("abc"), OWNER));
+        assertEquals("The upload continues at offset 3", conflict.getMessage());
+        assertThrows(IllegalStateException.class, () -> pictureUploads.append(upload.getId(), null, chunk("def"), OWNER));
+    }
+
+    @Test
+    void interruptedChunkResumesAtTheBytesReceived() throws IOException {
+        UploadDTO upload = pictureUploads.create(6L, OWNER);
+        // The connection dropped after two bytes of the first chunk
+        pictureUploads.append(upload.getId(), 0L, chunk("ab"), OWNER);
+
+        long offset = pictureUploads.find(upload.getId(), OWNER).getOffset();
+        assertEquals(2, offset);
+        pictureUploads.append(upload.getId(), offset, chunk("cdef"), OWNER);
+
+        assertArrayEquals("abcdef".getBytes(), Files.readAllBytes(pictureUploads.claim(upload.getId(), OWNER)));
+    }
+
+    @Test
+    void chunkPastTheSizeIsRefusedAndDropped() throws IOException {
+        UploadDTO upload = pictureUploads.create(4L, OWNER);
+        pictureUploads.append(upload.getId(), 0L, chunk("ab"), OWNER);
+
+        assertThrows(IllegalArgumentException.class, () -> pictureUploads.append(upload.getId(), 2L, chunk("cdef"), OWNER));
+        assertEquals(2, pictureUploads.find(upload.getId(), OWNER).getOffset());
+    }
+
+    @Test
+    void incompleteUploadCannotBeClaimed() throws IOException {
+        UploadDTO upload = pictureUploads.create(6L, OWNER);
+        pictureUploads.append(upload.getId(), 0L, chunk("abc"), OWNER);
+
+        assertThrows(IllegalArgumentException.class, () -> pictureUploads.claim(upload.getId(), OWNER));
+        assertThrows(IllegalArgumentException.class, () -> pictureUploads.claim("unknown", OWNER));
+    }
+
+    @Test
+    void claimedUploadIsGoneOnceTheRentalIsCommitted() throws IOException {
+        UploadDTO upload = pictureUploads.create(3L, OWNER);
+        pictureUploads.append(upload.getId(), 0L, chunk("abc"), OWNER);
+        Path file = pictureUploads.claim(upload.getId(), OWNER);
+
+        // Until the rental is committed, the upload can neither be changed nor claimed again
+        assertThrows(NoSuchElementException.class, () -> pictureUploads.append(upload.getId(), 3L, chunk("d"), OWNER));
+        assertThrows(IllegalStateException.class, () -> pictureUploads.claim(upload.getId(), OWNER));
+
+        pictureUploads.onPictureUploadCommitted(new RentalPictureUpload(1L, file, upload.getId()));
+
+        assertThrows(NoSuchElementException.class, () -> pictureUploads.find(upload.getId(), OWNER));
+        assertThrows(IllegalArgumentException.class, () -> pictureUploads.claim(upload.getId(), OWNER));
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    void claimedUploadIsGivenBackIfTheRentalIsRolledBack() throws IOException {
+        UploadDTO upload = pictureUploads.create(3L, OWNER);
+        pictureUploads.append(upload.getId(), 0L, chunk("abc"), OWNER);
+        // The rental renamed the file after itself before its transaction rolled back
+        Path assigned = pictureSpool.assign(pictureUploads.claim(upload.getId(), OWNER), 1L);
+
+        pictureUploads.onPictureUploadRolledBack(new RentalPictureUpload(1L, assigned, upload.getId()));
+
+        assertEquals(3, pictureUploads.find(upload.getId(), OWNER).getOffset());
+        assertArrayEquals("abc".getBytes(), Files.readAllBytes(pictureUploads.claim(upload.getId(), OWNER)));
+        assertEquals(1, spooledFiles());
+    }
+
+    @Test
+    void claimedUploadIsGivenBackIfTheRentalCannotBeStored() throws IOException {
+        UploadDTO upload = pictureUploads.create(3L, OWNER);
+        pictureUploads.append(upload.getId(), 0L, chunk("abc"), OWNER);
+
+        pictureUploads.restore(upload.getId(), pictureUploads.claim(upload.getId(), OWNER));
+
+        assertArrayEquals("abc".getBytes(), Files.readAllBytes(pictureUploads.claim(upload.getId(), OWNER)));
+    }
+
+    @Test
+    void claimedUploadIsNotSwept() throws Exception {
+        pictureUploads = uploads(Duration.ofMillis(50), 2);
+        UploadDTO upload = pictureUploads.create(3L, OWNER);
+        pictureUploads.append(upload.getId(), 0L, chunk("abc"), OWNER);
+        Path file = pictureUploads.claim(upload.getId(), OWNER);
+
+        Thread.sleep(100);
+        pictureUploads.discardExpired();
+
+        assertTrue(Files.exists(file));
+        // Given back with a new lease, since the user could not attach it
+        pictureUploads.restore(upload.getId(), file);
+        assertEquals(3, pictureUploads.find(upload.getId(), OWNER).getOffset());
+    }
+
+    @Test
+    void uploadsOfAnotherUserAreNotFound() throws IOException {
+        UploadDTO upload = pictureUploads.create(3L, OWNER);
+
+        assertThrows(NoSuchElementException.class, () -> pictureUploads.find(upload.getId(), "other@example.com"));
+        assertThrows(NoSuchElementException.class,
+            () -> pictureUploads.append(upload.getId(), 0L, chunk("abc"), "other@example.com"));
+    }
+
+    @Test
+    void uploadIsBusyWhileAChunkIsBeingSent() throws Exception {
+        UploadDTO upload = pictureUploads.create(6L, OWNER);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<UploadDTO> sending = senders.submit(() -> pictureUploads.append(upload.getId(), 0L,
+            new SlowChunk("abcdef".getBytes(), started, release), OWNER));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        assertThrows(IllegalStateException.class, () -> pictureUploads.append(upload.getId(), 0L, chunk("abcdef"), OWNER));
+        assertThrows(IllegalStateException.class, () -> pictureUploads.claim(upload.getId(), OWNER));
+
+        release.countDown();
+        assertEquals(6, sending.get(1, TimeUnit.SECONDS).getOffset());
+        assertTrue(Files.exists(pictureUploads.claim(upload.getId(), OWNER)));
+    }
+
+    @Test
+    void sizeMustBeGivenAndWithinTheLimit() {
+        assertThrows(IllegalArgumentException.class, () -> pictureUploads.create(null, OWNER));
+        assertThrows(IllegalArgumentException.class, () -> pictureUploads.create(0L, OWNER));
+        assertThrows(IllegalArgumentException.class, () -> pictureUploads.create(DataSize.ofKilobytes(1).toBytes() + 1, OWNER));
+    }
+
+    @Test
+    void uploadsInProgressAreCappedPerUser() throws IOException {
+        UploadDTO first = pictureUploads.create(3L, OWNER);
+        pictureUploads.create(3L, OWNER);
+
+        assertThrows(IllegalStateException.class, () -> pictureUploads.create(3L, OWNER));
+        // Other users are not affected, and a cancelled upload frees its slot
+        pictureUploads.create(3L, "other@example.com");
+        pictureUploads.cancel(first.getId(), OWNER);
+        pictureUploads.create(3L, OWNER);
+        assertEquals(3, spooledFiles());
+    }
+
+    @Test
+    void sweepDeletesExpiredUploads() throws Exception {
+        pictureUploads = uploads(Duration.ofMillis(50), 2);
+        UploadDTO upload = pictureUploads.create(3L, OWNER);
+        assertEquals(1, spooledFiles());
+
+        Thread.sleep(100);
+        assertThrows(NoSuchElementException.class, () -> pictureUploads.find(upload.getId(), OWNER));
+        pictureUploads.discardExpired();
+
+        assertEquals(0, spooledFiles());
+        // Expired uploads no longer count against the user
+        pictureUploads.create(3L, OWNER);
+        pictureUploads.create(3L, OWNER);
+    }
+
+    private PictureUploads uploads(Duration expireAfter, int maxPerOwner) {
+        return new PictureUploads(pictureSpool, DataSize.ofKilobytes(1), expireAfter, maxPerOwner);
+    }
+
+    private long spooledFiles() throws IOException {
+        try (var files = Files.list(spoolDir)) {
+            return files.count();
+        }
+    }
+
+    private static InputStream chunk(String bytes) {
+        return new ByteArrayInputStream(bytes.getBytes());
+    }
+
+    /**
+     * A chunk whose bytes arrive only once the test releases them.
+     */
+    private static final class SlowChunk extends ByteArrayInputStream {
+
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        SlowChunk(byte[] bytes, CountDownLatch started, CountDownLatch release) {
+            super(bytes);
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public synchronized int read(byte[] buffer, int offset, int length) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.read(buffer, offset, length);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.dto.RentalDTO;
+import com.example.rental_backend.dto.RentalsWrapperDTO;
+import com.example.rental_backend.model.Rental;
+import com.example.rental_backend.model.User;
+import com.example.rental_backend.repository.RentalFilter;
+import com.example.rental_backend.repository.RentalRepository;
+import com.example.rental_backend.repository.RentalSort;
+import com.example.rental_backend.repository.UserRepository;
+import com.example.rental_backend.storage.ImageStorage;
+import com.example.rental_backend.storage.StorageBulkhead;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round-trips keyset cursors through their opaque form, and walks the listing page by page against an
+ * embedded H2 database, where many rentals share the same sort value and only the ID tells them apart,
+ * and some have no price or surface at all.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import(RentalService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RentalCursorTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_000_000);
+    private static final RentalFilter NO_FILTER = new RentalFilter(null, null, null, null);
+
+    @MockBean private RentalSearchIndex searchIndex;
+    @MockBean private RentalJsonCache jsonCache;
+    @MockBean private PictureSpool pictureSpool;
+    @MockBean private PictureIndex pictureIndex;
+    @MockBean private PictureUploads pictureUploads;
+    @MockBean private ImageStorage imageStorage;
+    @MockBean private StorageBulkhead storageBulkhead;
+
+    @Autowired private RentalService rentalService;
+    @Autowired private RentalRepository rentalRepository;
+    @Autowired private UserRepository userRepository;
+
+    private final List<Long> rentalIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        rentalRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User owner = new User();
+        owner.setEmail("owner@example.com");
+        owner.setName("Owner");
+        owner.setPassword("secret");
+        userRepository.save(owner);
+
+        // Three prices and two creation times for seven rentals: every page boundary falls on a tie
+        for (int i = 0; i < 7; i++) {
+            Rental rental = new Rental();
+            rental.setName("Rental " + i);
+            rental.setSurface(20 + 10 * (i % 2));
+            rental.setPrice(500.0 + 100 * (i % 3));
+            rental.setOwnerId(owner.getId());
+            rental.setCreatedAt(CREATED_AT.plusMinutes(i % 2));
+            rental.setUpdatedAt(CREATED_AT);
+            rentalIds.add(rentalRepository.save(rental).getId());
+        }
+
+        // Rentals without a price, a surface or either: they come last whatever the direction
+        for (int i = 0; i < 3; i++) {
+            Rental rental = new Rental();
+            rental.setName("Unpriced rental " + i);
+            rental.setSurface(i == 0 ? 25 : null);
+            rental.setPrice(i == 1 ? 550.0 : null);
+            rental.setOwnerId(owner.getId());
+            rental.setCreatedAt(CREATED_AT.plusMinutes(2));
+            rental.setUpdatedAt(CREATED_AT);
+            rentalIds.add(rentalRepository.save(rental).getId());
+        }
+    }
+
+    @Test
+    void cursorSurvivesEncoding() {
+        assertRoundTrip(new RentalCursor(RentalSort.NEWEST, CREATED_AT, 42L));
+        assertRoundTrip(new RentalCursor(RentalSort.OLDEST, CREATED_AT, 1L));
+        assertRoundTrip(new RentalCursor(RentalSort.PRICE_ASC, 899.99, 7L));
+        assertRoundTrip(new RentalCursor(RentalSort.PRICE_DESC, 1200.0, Long.MAX_VALUE));
+        assertRoundTrip(new RentalCursor(RentalSort.SURFACE_ASC, 35, 3L));
+        assertRoundTrip(new RentalCursor(RentalSort.SURFACE_DESC, 120, 9L));
+        assertRoundTrip(new RentalCursor(RentalSort.PRICE_ASC, null, 8L));
+        assertRoundTrip(new RentalCursor(RentalSort.SURFACE_DESC, null, 10L));
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String token = new RentalCursor(RentalSort.NEWEST, CREATED_AT, 42L).encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    }
+
+    @Test
+    void cursorIsBoundToItsSortOrder() {
+        String token = new RentalCursor(RentalSort.PRICE_ASC, 899.99, 7L).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> RentalCursor.decode(token, RentalSort.PRICE_DESC));
+        assertThrows(IllegalArgumentException.class, () -> RentalCursor.decode(token, RentalSort.SURFACE_ASC));
+    }
+
+    @Test
+    void malformedCursorIsRefused() {
+        assertThrows(IllegalArgumentException.class, () -> RentalCursor.decode("not a cursor!", RentalSort.NEWEST));
+        assertThrows(IllegalArgumentException.class, () -> RentalCursor.decode(token("-created_at|42"), RentalSort.NEWEST));
+        assertThrows(IllegalArgumentException.class, () -> RentalCursor.decode(token("-created_at|yesterday|42"), RentalSort.NEWEST));
+        assertThrows(IllegalArgumentException.class, () -> RentalCursor.decode(token("price|cheap|42"), RentalSort.PRICE_ASC));
+        assertThrows(IllegalArgumentException.class, () -> RentalCursor.decode(token("price|500.0|last"), RentalSort.PRICE_ASC));
+        assertThrows(IllegalArgumentException.class, () -> RentalCursor.decode(token("surface|35.5|42"), RentalSort.SURFACE_ASC));
+    }
+
+    @Test
+    void pagesVisitEachRentalOnceWhenSortValuesTie() {
+        for (RentalSort sort : RentalSort.values()) {
+            for (int limit = 1; limit <= 3; limit++) {
+                List<RentalDTO> visited = walk(sort, limit);
+
+                assertEquals(expectedOrder(sort), visited.stream().map(RentalDTO::getId).toList(), sort + " by " + limit);
+            }
+        }
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        RentalsWrapperDTO page = rentalService.getRentals(NO_FILTER, RentalSort.PRICE_ASC, null, rentalIds.size());
+
+        assertEquals(rentalIds.size(), page.getRentals().size());
+        assertNull(page.getNext());
+    }
+
+    /**
+     * Follows the cursors from the first page to the last, collecting the rentals in order.
+     */
+    private List<RentalDTO> walk(RentalSort sort, int limit) {
+        List<RentalDTO> visited = new ArrayList<>();
+        String cursor = null;
+        do {
+            RentalsWrapperDTO page = rentalService.getRentals(NO_FILTER, sort, cursor, limit);
+            assertTrue(page.getRentals().size() <= limit);
+            visited.addAll(page.getRentals());
+            cursor = page.getNext();
+        } while (cursor != null);
+        return visited;
+    }
+
+    /**
+     * Orders the rentals as the listing should: by the sort attribute, then by ID in the same direction,
+     * with the rentals without a sort value last.
+     */
+    private List<Long> expectedOrder(RentalSort sort) {
+        Comparator<RentalDTO> order = switch (sort) {
+            case NEWEST, OLDEST -> Comparator.comparing(RentalDTO::getCreatedAt, Comparator.nullsLast(direction(sort)));
+            case PRICE_ASC, PRICE_DESC -> Comparator.comparing(RentalDTO::getPrice, Comparator.nullsLast(direction(sort)));
+            case SURFACE_ASC, SURFACE_DESC -> Comparator.comparing(RentalDTO::getSurface, Comparator.nullsLast(direction(sort)));
+        };
+        order = order.thenComparing(RentalDTO::getId, direction(sort));
+        return rentalRepository.findPage(NO_FILTER, RentalSort.OLDEST, null, null, rentalIds.size()).stream()
+            .sorted(order)
+            .map(RentalDTO::getId)
+            .toList();
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<T> direction(RentalSort sort) {
+        return sort.isDescending() ? Comparator.reverseOrder() : Comparator.naturalOrder();
+    }
+
+    private static void assertRoundTrip(RentalCursor cursor) {
+        RentalCursor decoded = RentalCursor.decode(cursor.encode(), cursor.getSort());
+
+        assertEquals(cursor.getSort(), decoded.getSort());
+        assertEquals(cursor.getValue(), decoded.getValue());
+        assertEquals(cursor.getId(), decoded.getId());
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.config.CacheConfig;
+import com.example.rental_backend.controller.RentalController;
+import com.example.rental_backend.dto.RentalPatchDTO;
+import com.example.rental_backend.dto.ResponseMessageDTO;
+import com.example.rental_backend.model.Rental;
+import com.example.rental_backend.model.User;
+import com.example.rental_backend.repository.RentalRepository;
+import com.example.rental_backend.repository.UserRepository;
+import com.example.rental_backend.storage.ImageStorage;
+import com.example.rental_backend.storage.StorageBulkhead;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Partial updates against an embedded H2 database: each PATCH is checked against the version the
+ * client read, and a stale version is refused with 409 Conflict without changing the rental. Full
+ * updates reach the cache and the search index only once committed.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.cache.type=simple"
+})
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+@Import({CacheConfig.class, RentalService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RentalPatchTest {
+
+    @MockBean private RentalSearchIndex searchIndex;
+    @MockBean private RentalJsonCache jsonCache;
+    @MockBean private PictureSpool pictureSpool;
+    @MockBean private PictureIndex pictureIndex;
+    @MockBean private PictureUploads pictureUploads;
+    @MockBean private ImageStorage imageStorage;
+    @MockBean private StorageBulkhead storageBulkhead;
+
+    @Autowired private RentalService rentalService;
+    @Autowired private RentalRepository rentalRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private Long rentalId;
+
+    @BeforeEach
+    void setUp() {
+        rentalRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User owner = new User();
+        owner.setEmail("owner@example.com");
+        owner.setName("Owner");
+        owner.setPassword("secret");
+        userRepository.save(owner);
+
+        Rental rental = new Rental();
+        rental.setName("Loft");
+        rental.setSurface(40);
+        rental.setPrice(900.0);
+        rental.setOwnerId(owner.getId());
+        rental.setCreatedAt(LocalDateTime.now());
+        rental.setUpdatedAt(LocalDateTime.now());
+        rentalId = rentalRepository.save(rental).getId();
+    }
+
+    @Test
+    void patchWritesOnlyTheGivenFieldsAndBumpsTheVersion() {
+        long version = rentalService.getRentalById(rentalId).orElseThrow().getVersion();
+
+        assertEquals(version + 1, rentalService.patchRental(rentalId, patch(version, 950.0)));
+
+        // The cached copy read above was evicted once the update committed
+        assertEquals(950.0, rentalService.getRentalById(rentalId).orElseThrow().getPrice());
+        assertEquals("Loft", rentalService.getRentalById(rentalId).orElseThrow().getName());
+        assertEquals(version + 1, rentalService.getRentalById(rentalId).orElseThrow().getVersion());
+    }
+
+    @Test
+    void staleVersionIsRefused() {
+        long version = rentalService.getRentalById(rentalId).orElseThrow().getVersion();
+        rentalService.patchRental(rentalId, patch(version, 950.0));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> rentalService.patchRental(rentalId, patch(version, 1000.0)));
+        assertEquals(950.0, rentalRepository.findDtoById(rentalId).orElseThrow().getPrice());
+    }
+
+    @Test
+    void staleVersionIsAnsweredWithConflict() {
+        long version = rentalService.getRentalById(rentalId).orElseThrow().getVersion();
+        rentalService.patchRental(rentalId, patch(version, 950.0));
+
+        RentalController controller = new RentalController(rentalService, null, null, null, null);
+        ResponseEntity<ResponseMessageDTO> stale = controller.patchRental(rentalId, patch(version, 1000.0));
+        ResponseEntity<ResponseMessageDTO> current = controller.patchRental(rentalId, patch(version + 1, 1000.0));
+
+        assertEquals(409, stale.getStatusCode().value());
+        assertEquals(200, current.getStatusCode().value());
+    }
+
+    @Test
+    void rolledBackUpdateLeavesTheCacheAndTheIndexAlone() {
+        rentalService.getRentalById(rentalId);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            rentalService.updateRental(rentalId, "Penthouse", 40, 900.0, null);
+            status.setRollbackOnly();
+        });
+
+        verify(searchIndex, never()).index(any());
+        assertEquals("Loft", rentalService.getRentalById(rentalId).orElseThrow().getName());
+    }
+
+    @Test
+    void committedUpdateIsCachedAndIndexedAfresh() {
+        rentalService.getRentalById(rentalId);
+
+        rentalService.updateRental(rentalId, "Penthouse", 40, 900.0, null);
+
+        verify(searchIndex).index(argThat(rental -> rental.getName().equals("Penthouse")));
+        assertEquals("Penthouse", rentalService.getRentalById(rentalId).orElseThrow().getName());
+    }
+
+    @Test
+    void missingRentalIsNotFound() {
+        assertThrows(EntityNotFoundException.class, () -> rentalService.patchRental(rentalId + 1000, patch(0L, 950.0)));
+    }
+
+    private static RentalPatchDTO patch(Long version, Double price) {
+        RentalPatchDTO patch = new RentalPatchDTO();
+        patch.setVersion(version);
+        patch.setPrice(price);
+        return patch;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.dto.RentalDTO;
+import com.example.rental_backend.model.PictureStatus;
+import com.example.rental_backend.storage.ImageStorage;
+import com.example.rental_backend.storage.StorageBulkhead;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Imports many pictures by URL through a bulkhead with little room, and checks that they wait for the
+ * import workers instead of being refused by the bulkhead.
+ */
+class RentalPictureUploaderTest {
+
+    private static final int PICTURES = 30;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ImageStorage imageStorage = mock(ImageStorage.class);
+    private final RentalService rentalService = mock(RentalService.class);
+    // One call at a time, one waiting, and a short wait: one upload per picture would overflow it at once
+    private final StorageBulkhead storageBulkhead = new StorageBulkhead(meterRegistry, 1, 1,
+        Duration.ofMillis(100), Duration.ofSeconds(5), 3, Duration.ofSeconds(30));
+    private final RentalPictureUploader uploader = new RentalPictureUploader(imageStorage, storageBulkhead,
+        rentalService, mock(PictureSpool.class), mock(PictureResizer.class), mock(PictureIndex.class), 2);
+
+    @AfterEach
+    void tearDown() {
+        uploader.destroy();
+        storageBulkhead.destroy();
+    }
+
+    @Test
+    void importedPicturesWaitForAWorker() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        when(imageStorage.storeFrom(any())).thenAnswer(invocation -> {
+            mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            running.decrementAndGet();
+            return "stored:" + invocation.getArgument(0);
+        });
+        when(rentalService.setPicture(anyLong(), any(), any(), any())).thenReturn(Optional.of(new RentalDTO()));
+
+        List<CompletableFuture<RentalDTO>> uploads = new ArrayList<>();
+        for (long id = 1; id <= PICTURES; id++) {
+            uploader.onPictureUpload(new RentalPictureUpload(id, "https://example.com/" + id + ".jpg"));
+            uploads.add(uploader.findUpload(id).orElseThrow());
+        }
+        CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        verify(rentalService, times(PICTURES)).setPicture(anyLong(), any(), any(), eq(PictureStatus.READY));
+        assertEquals(0, meterRegistry.find("storage.bulkhead.rejected").counters().stream()
+            .mapToDouble(Counter::count).sum());
+        assertTrue(mostRunning.get() <= 1, "calls running at once: " + mostRunning.get());
+    }
+}
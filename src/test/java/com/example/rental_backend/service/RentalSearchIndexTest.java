@@ -0,0 +1,158 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.dto.RentalDTO;
+import com.example.rental_backend.repository.RentalRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ranks small sets of rentals with BM25 and checks the order of the results, and that an updated rental
+ * is only found by its current text, before and after its old versions are compacted away.
+ */
+class RentalSearchIndexTest {
+
+    private final RentalRepository rentalRepository = mock(RentalRepository.class);
+    private final RentalSearchIndex index = new RentalSearchIndex(rentalRepository, new SimpleMeterRegistry());
+
+    @Test
+    void moreOccurrencesRankFirst() {
+        index.index(rental(1L, "Flat", "A garden."));
+        index.index(rental(2L, "Flat", "A garden, a garden view and a garden shed."));
+        index.index(rental(3L, "Flat", "No outdoor space."));
+
+        assertEquals(List.of(2L, 1L), index.search("garden", 10));
+    }
+
+    @Test
+    void nameMatchesOutrankDescriptionMatches() {
+        index.index(rental(1L, "Studio", "Close to the lake."));
+        index.index(rental(2L, "Lake house", "Quiet street."));
+        index.index(rental(3L, "Loft", "Top floor."));
+
+        assertEquals(List.of(2L, 1L), index.search("lake", 10));
+    }
+
+    @Test
+    void rareTermsWeighMoreThanCommonOnes() {
+        index.index(rental(1L, "Flat", "Balcony."));
+        index.index(rental(2L, "Flat", "Sauna."));
+        index.index(rental(3L, "House", "Balcony."));
+        index.index(rental(4L, "Cabin", "Balcony."));
+
+        // Both match one term, but only one rental has a sauna
+        assertEquals(2L, index.search("balcony sauna", 10).get(0));
+    }
+
+    @Test
+    void shorterDocumentsRankFirstForTheSameMatches() {
+        index.index(rental(1L, "Flat", "Parking, cellar, lift, intercom, fibre, bike room and a balcony."));
+        index.index(rental(2L, "Flat", "Balcony."));
+
+        assertEquals(List.of(2L, 1L), index.search("balcony", 10));
+    }
+
+    @Test
+    void documentsMatchingMoreTermsRankFirst() {
+        index.index(rental(1L, "Flat", "Balcony."));
+        index.index(rental(2L, "Flat", "Balcony and parking."));
+        index.index(rental(3L, "Flat", "Parking."));
+
+        assertEquals(2L, index.search("balcony parking", 10).get(0));
+        assertEquals(3, index.search("balcony parking", 10).size());
+    }
+
+    @Test
+    void lastTermMatchesAsAPrefix() {
+        index.index(rental(1L, "Apartment", "Bright."));
+        index.index(rental(2L, "Appartement", "Sombre."));
+        index.index(rental(3L, "House", "Bright."));
+
+        assertEquals(List.of(1L, 3L), index.search("bright apartm", 10));
+        assertEquals(2, index.search("ap", 10).size());
+        // Only the last term is a prefix
+        assertEquals(List.of(3L), index.search("ap house", 10));
+    }
+
+    @Test
+    void accentsAndCaseAreIgnored() {
+        index.index(rental(1L, "Château", "Près de la forêt."));
+
+        assertEquals(List.of(1L), index.search("CHATEAU", 10));
+        assertEquals(List.of(1L), index.search("foret", 10));
+    }
+
+    @Test
+    void resultsAreCappedAtTheLimit() {
+        for (long id = 1; id <= 20; id++) {
+            index.index(rental(id, "Flat " + id, "Balcony" + " balcony".repeat((int) id)));
+        }
+
+        assertEquals(List.of(20L, 19L, 18L), index.search("balcony", 3));
+        assertEquals(List.of(), index.search("", 3));
+        assertEquals(List.of(), index.search("nothing", 3));
+    }
+
+    @Test
+    void updatedRentalIsFoundByItsNewTextOnly() {
+        index.index(rental(1L, "Seaside flat", "Sea view."));
+        index.index(rental(2L, "Mountain cabin", "Ski in."));
+        index.index(rental(1L, "City flat", "Street view."));
+
+        assertEquals(List.of(), index.search("sea", 10));
+        assertEquals(List.of(1L), index.search("city", 10));
+        // The tombstoned version is not returned next to the live one
+        assertEquals(List.of(1L), index.search("flat", 10));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void compactionKeepsTheLiveDocuments() {
+        for (long id = 1; id <= 4; id++) {
+            index.index(rental(id, "Flat", "Version 0."));
+        }
+        // Enough updates to tombstone more than a quarter of the documents, several times over
+        for (int version = 1; version <= 5; version++) {
+            for (long id = 1; id <= 3; id++) {
+                index.index(rental(id, "Flat", "Version " + version + (id == 2 ? " garden" : "") + "."));
+            }
+        }
+
+        assertEquals(4, index.size());
+        assertEquals(List.of(2L), index.search("garden", 10));
+        assertEquals(List.of(4L), index.search("0", 10));
+        assertEquals(3, index.search("5", 10).size());
+        assertEquals(List.of(), index.search("4", 10));
+        assertEquals(4, index.search("flat", 10).size());
+    }
+
+    @Test
+    void rebuildKeepsRentalsIndexedSinceStartup() {
+        index.index(rental(1L, "Renovated loft", "New kitchen."));
+        when(rentalRepository.streamAll()).thenReturn(Stream.of(
+            rental(1L, "Old loft", "Old kitchen."),
+            rental(2L, "Garden house", "Large garden.")));
+
+        index.rebuild();
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(1L), index.search("renovated", 10));
+        assertEquals(List.of(), index.search("old", 10));
+        assertTrue(index.search("garden", 10).contains(2L));
+    }
+
+    private static RentalDTO rental(Long id, String name, String description) {
+        RentalDTO rental = new RentalDTO();
+        rental.setId(id);
+        rental.setName(name);
+        rental.setDescription(description);
+        return rental;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.rental_backend.service;
+
+import com.example.rental_backend.model.Rental;
+import com.example.rental_backend.model.User;
+import com.example.rental_backend.repository.MessageRepository;
+import com.example.rental_backend.repository.RentalRepository;
+import com.example.rental_backend.repository.UserRepository;
+import com.example.rental_backend.storage.ImageStorage;
+import com.example.rental_backend.storage.StorageBulkhead;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counts, with Hibernate statistics, the connections, transactions and statements each service call
+ * costs against an embedded H2 database. Every call runs in its own service transaction, the test
+ * itself opens none.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({RentalService.class, MessageService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ServiceTransactionsTest {
+
+    @MockBean private RentalSearchIndex searchIndex;
+    @MockBean private RentalJsonCache jsonCache;
+    @MockBean private PictureSpool pictureSpool;
+    @MockBean private PictureIndex pictureIndex;
+    @MockBean private PictureUploads pictureUploads;
+    @MockBean private ImageStorage imageStorage;
+    @MockBean private StorageBulkhead storageBulkhead;
+
+    @Autowired private RentalService rentalService;
+    @Autowired private MessageService messageService;
+    @Autowired private MessageRepository messageRepository;
+    @Autowired private RentalRepository rentalRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User owner;
+    private Rental rental;
+
+    @BeforeEach
+    void setUp() {
+        messageRepository.deleteAll();
+        rentalRepository.deleteAll();
+        userRepository.deleteAll();
+
+        owner = new User();
+        owner.setEmail("owner@example.com");
+        owner.setName("Owner");
+        owner.setPassword("secret");
+        userRepository.save(owner);
+
+        rental = new Rental();
+        rental.setName("Loft");
+        rental.setSurface(40);
+        rental.setPrice(900.0);
+        rental.setOwnerId(owner.getId());
+        rental.setCreatedAt(LocalDateTime.now());
+        rental.setUpdatedAt(LocalDateTime.now());
+        rentalRepository.save(rental);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void updateRentalFlushesOneUpdateOnOneConnection() {
+        rentalService.updateRental(rental.getId(), "Loft with a view", 42, 950.0, "Top floor");
+
+        assertEquals(1, statistics.getConnectCount());
+        assertEquals(1, statistics.getTransactionCount());
+        // The SELECT loading the rental, then its UPDATE
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityUpdateCount());
+    }
+
+    @Test
+    void sendMessageRunsInOneTransaction() {
+        messageService.sendMessage("Is it still available?", owner.getId(), rental.getId());
+
+        assertEquals(1, statistics.getConnectCount());
+        assertEquals(1, statistics.getTransactionCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+        // The user and the rental are attached as references, never loaded
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void directUploadIsCheckedBeforeAnyQuery() throws Exception {
+        List<Long> statementsBeforeCheck = new ArrayList<>();
+        when(storageBulkhead.call(any())).thenAnswer(invocation -> {
+            statementsBeforeCheck.add(statistics.getPrepareStatementCount());
+            return "https://pictures.example.com/loft.jpg";
+        });
+
+        rentalService.createRental("Studio", 20, 500.0, "Ground floor", null, null, null, "loft", owner.getEmail());
+
+        assertEquals(List.of(0L), statementsBeforeCheck);
+        assertEquals(1, statistics.getEntityInsertCount());
+    }
+
+    @Test
+    void readsNeitherFlushNorLoadEntities() {
+        rentalService.getRentalById(rental.getId());
+        rentalService.getOwnerRentals(owner.getEmail());
+
+        assertEquals(2, statistics.getConnectCount());
+        assertEquals(2, statistics.getTransactionCount());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getFlushCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.rental_backend.storage;
+
+import com.example.rental_backend.dto.DirectUploadDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that direct upload keys and presigned URLs are only honoured for the user they were issued to,
+ * before they expire, and not once any part of them is changed.
+ */
+class SignaturesTest {
+
+    private static final byte[] SECRET = "a-secret-for-tests".getBytes();
+    private static final String OWNER = "owner@example.com";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void signatureDependsOnTheKeyAndTheData() {
+        String signature = Signatures.sign(SECRET, "PUT\nkey\n1");
+
+        assertEquals(64, signature.length());
+        assertEquals(signature, Signatures.sign(SECRET, "PUT\nkey\n1"));
+        assertTrue(Signatures.matches(signature, Signatures.sign(SECRET, "PUT\nkey\n1")));
+        assertFalse(Signatures.matches(signature, Signatures.sign(SECRET, "PUT\nkey\n2")));
+        assertFalse(Signatures.matches(signature, Signatures.sign("another-secret".getBytes(), "PUT\nkey\n1")));
+        assertFalse(Signatures.matches(signature, null));
+    }
+
+    @Test
+    void keyIsIssuedToOneOwner() {
+        String key = Signatures.issueKey(SECRET, OWNER);
+
+        assertTrue(key.matches("[0-9a-f]{32}"));
+        assertTrue(Signatures.isIssuedTo(SECRET, key, OWNER));
+        assertFalse(Signatures.isIssuedTo(SECRET, key, "other@example.com"));
+        assertFalse(Signatures.isIssuedTo("another-secret".getBytes(), key, OWNER));
+        assertFalse(Signatures.isIssuedTo(SECRET, null, OWNER));
+        assertFalse(Signatures.isIssuedTo(SECRET, key.substring(1), OWNER));
+    }
+
+    @Test
+    void tamperedKeyIsNotIssued() {
+        String key = Signatures.issueKey(SECRET, OWNER);
+
+        assertFalse(Signatures.isIssuedTo(SECRET, flip(key, 0), OWNER));
+        assertFalse(Signatures.isIssuedTo(SECRET, flip(key, 31), OWNER));
+    }
+
+    @Test
+    void presignedUrlAcceptsThePictureOnce() throws IOException {
+        LocalImageStorage storage = storage();
+        UriComponents url = url(storage.prepareDirectUpload(OWNER));
+        String key = key(url);
+
+        String stored = storage.receive(key, expires(url), signature(url), picture());
+
+        assertEquals("/api/images/" + key + ".png", stored);
+        assertEquals(stored, storage.verifyDirectUpload(key, OWNER));
+        assertThrows(IllegalArgumentException.class, () -> storage.verifyDirectUpload(key, "other@example.com"));
+        assertThrows(IllegalStateException.class,
+            () -> storage.receive(key, expires(url), signature(url), picture()));
+    }
+
+    @Test
+    void tamperedPresignedUrlIsRefused() throws IOException {
+        LocalImageStorage storage = storage();
+        UriComponents url = url(storage.prepareDirectUpload(OWNER));
+        String key = key(url);
+
+        assertThrows(SecurityException.class, () -> storage.receive(flip(key, 0), expires(url), signature(url), picture()));
+        assertThrows(SecurityException.class, () -> storage.receive(key, expires(url) + 3600, signature(url), picture()));
+        assertThrows(SecurityException.class, () -> storage.receive(key, expires(url), flip(signature(url), 0), picture()));
+        assertThrows(SecurityException.class, () -> storage.receive(key, expires(url), null, picture()));
+        // Nothing was stored
+        assertThrows(IllegalArgumentException.class, () -> storage.verifyDirectUpload(key, OWNER));
+    }
+
+    @Test
+    void expiredPresignedUrlIsRefused() throws IOException {
+        LocalImageStorage storage = storage();
+        String key = Signatures.issueKey(SECRET, OWNER);
+        long expired = Instant.now().minusSeconds(1).getEpochSecond();
+        String signature = Signatures.sign(SECRET, "PUT\n" + key + "\n" + expired);
+
+        assertThrows(SecurityException.class, () -> storage.receive(key, expired, signature, picture()));
+    }
+
+    @Test
+    void pictureNotYetUploadedIsNotVerified() throws IOException {
+        LocalImageStorage storage = storage();
+        String key = key(url(storage.prepareDirectUpload(OWNER)));
+
+        IllegalArgumentException missing = assertThrows(IllegalArgumentException.class, () -> storage.verifyDirectUpload(key, OWNER));
+        assertEquals("The picture has not been uploaded", missing.getMessage());
+    }
+
+    private LocalImageStorage storage() throws IOException {
+        return new LocalImageStorage(directory, "/api/images/", new String(SECRET), DataSize.ofKilobytes(64),
+            Duration.ofSeconds(1), Duration.ofSeconds(1));
+    }
+
+    private static UriComponents url(DirectUploadDTO upload) {
+        return UriComponentsBuilder.fromUriString(upload.getUrl()).build();
+    }
+
+    private static String key(UriComponents url) {
+        return url.getPathSegments().get(url.getPathSegments().size() - 1);
+    }
+
+    private static long expires(UriComponents url) {
+        return Long.parseLong(url.getQueryParams().getFirst("expires"));
+    }
+
+    private static String signature(UriComponents url) {
+        return url.getQueryParams().getFirst("signature");
+    }
+
+    private static String flip(String hex, int index) {
+        char replacement = hex.charAt(index) == '0' ? '1' : '0';
+        return hex.substring(0, index) + replacement + hex.substring(index + 1);
+    }
+
+    private static ByteArrayInputStream picture() throws IOException {
+        return new ByteArrayInputStream(png());
+    }
+
+    private static byte[] png() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.rental_backend.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the bulkhead and its circuit breaker through their states with calls that succeed, fail,
+ * hang or wait, and checks which calls are refused and why.
+ */
+class StorageBulkheadTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(200);
+
+    @TempDir
+    Path directory;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private StorageBulkhead bulkhead;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (bulkhead != null) {
+            bulkhead.destroy();
+        }
+    }
+
+    @Test
+    void returnsTheResultOfTheCall() throws Exception {
+        bulkhead = bulkhead(2, 2, Duration.ofSeconds(1), Duration.ofSeconds(1));
+
+        assertEquals("url", bulkhead.call(() -> "url"));
+        assertEquals(1, meterRegistry.timer("storage.calls", "outcome", "success").count());
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresThenRefusesCalls() throws Exception {
+        bulkhead = bulkhead(2, 2, Duration.ofSeconds(1), Duration.ofSeconds(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IOException.class, () -> bulkhead.call(StorageBulkheadTest::fail));
+        }
+
+        StorageUnavailableException refused = assertThrows(StorageUnavailableException.class, () -> bulkhead.call(() -> "url"));
+        assertTrue(refused.getRetryAfter().isPositive());
+        assertThrows(StorageUnavailableException.class, () -> bulkhead.checkAvailable());
+        assertEquals(2, rejections("circuit_open"));
+        assertEquals(2, gauge("storage.circuit.state"));
+    }
+
+    @Test
+    void successfulTrialClosesTheCircuit() throws Exception {
+        bulkhead = bulkhead(2, 2, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        open();
+
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        assertEquals(1, gauge("storage.circuit.state"));
+        assertEquals("url", bulkhead.call(() -> "url"));
+
+        assertEquals(0, gauge("storage.circuit.state"));
+        bulkhead.checkAvailable();
+    }
+
+    @Test
+    void failedTrialOpensTheCircuitAgain() throws Exception {
+        bulkhead = bulkhead(2, 2, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        open();
+
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        assertThrows(IOException.class, () -> bulkhead.call(StorageBulkheadTest::fail));
+
+        assertEquals(2, gauge("storage.circuit.state"));
+        assertThrows(StorageUnavailableException.class, () -> bulkhead.call(() -> "url"));
+    }
+
+    @Test
+    void onlyOneTrialRunsWhileHalfOpen() throws Exception {
+        bulkhead = bulkhead(2, 2, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        open();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        CountDownLatch trialStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> trial = callers.submit(() -> bulkhead.call(() -> {
+            trialStarted.countDown();
+            await(release);
+            return "trial";
+        }));
+        assertTrue(trialStarted.await(1, TimeUnit.SECONDS));
+
+        assertThrows(StorageUnavailableException.class, () -> bulkhead.call(() -> "url"));
+        release.countDown();
+        assertEquals("trial", trial.get(1, TimeUnit.SECONDS));
+        assertEquals("url", bulkhead.call(() -> "url"));
+    }
+
+    @Test
+    void errorsAboutThePictureDoNotOpenTheCircuit() throws Exception {
+        bulkhead = bulkhead(2, 2, Duration.ofSeconds(1), Duration.ofSeconds(1));
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IllegalArgumentException.class, () -> bulkhead.call(() -> {
+                throw new IllegalArgumentException("Not a picture");
+            }));
+        }
+
+        assertEquals(0, gauge("storage.circuit.state"));
+        assertEquals("url", bulkhead.call(() -> "url"));
+    }
+
+    @Test
+    void unreachablePictureUrlsDoNotOpenTheCircuit() throws Exception {
+        bulkhead = bulkhead(2, 2, Duration.ofSeconds(5), Duration.ofSeconds(5));
+        LocalImageStorage storage = new LocalImageStorage(directory, "/api/images/", "a-secret-for-tests",
+            DataSize.ofKilobytes(64), Duration.ofMillis(200), Duration.ofMillis(500));
+
+        try {
+            // A public address reserved for documentation: nothing answers there
+            for (int i = 0; i < 5; i++) {
+                assertThrows(IllegalArgumentException.class,
+                    () -> bulkhead.call(() -> storage.storeFrom("http://192.0.2.1/picture.png")));
+            }
+        } finally {
+            storage.destroy();
+        }
+
+        assertEquals(0, gauge("storage.circuit.state"));
+        bulkhead.checkAvailable();
+    }
+
+    @Test
+    void callsOverTheTimeoutAreAbandonedAndCountAsFailures() throws Exception {
+        bulkhead = bulkhead(2, 2, Duration.ofSeconds(1), Duration.ofMillis(100));
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IOException.class, () -> bulkhead.call(() -> {
+                await(new CountDownLatch(1));
+                return "never";
+            }));
+        }
+
+        assertEquals(3, meterRegistry.timer("storage.calls", "outcome", "timeout").count());
+        assertEquals(2, gauge("storage.circuit.state"));
+    }
+
+    @Test
+    void refusesCallsOnceTheQueueIsFull() throws Exception {
+        bulkhead = bulkhead(1, 1, Duration.ofSeconds(5), Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> running = callers.submit(() -> bulkhead.call(() -> {
+            await(release);
+            return "running";
+        }));
+        waitFor("storage.bulkhead.active", 1);
+        Future<String> waiting = callers.submit(() -> bulkhead.call(() -> "waiting"));
+        waitFor("storage.bulkhead.queued", 1);
+
+        assertThrows(StorageUnavailableException.class, () -> bulkhead.call(() -> "refused"));
+        assertThrows(StorageUnavailableException.class, () -> bulkhead.checkAvailable());
+        assertEquals(2, rejections("queue_full"));
+
+        release.countDown();
+        assertEquals("running", running.get(1, TimeUnit.SECONDS));
+        assertEquals("waiting", waiting.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void refusesCallsThatWaitTooLong() throws Exception {
+        bulkhead = bulkhead(1, 1, Duration.ofMillis(100), Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> running = callers.submit(() -> bulkhead.call(() -> {
+            await(release);
+            return "running";
+        }));
+        waitFor("storage.bulkhead.active", 1);
+
+        assertThrows(StorageUnavailableException.class, () -> bulkhead.call(() -> "late"));
+        assertEquals(1, rejections("wait_timeout"));
+        // Refusals are about the bulkhead, not the storage: the circuit stays closed
+        assertEquals(0, gauge("storage.circuit.state"));
+
+        release.countDown();
+        assertEquals("running", running.get(1, TimeUnit.SECONDS));
+    }
+
+    private StorageBulkhead bulkhead(int maxConcurrent, int maxQueued, Duration maxWait, Duration callTimeout) {
+        return new StorageBulkhead(meterRegistry, maxConcurrent, maxQueued, maxWait, callTimeout, 3, OPEN_DURATION);
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IOException.class, () -> bulkhead.call(StorageBulkheadTest::fail));
+        }
+        assertEquals(2, gauge("storage.circuit.state"));
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private double rejections(String reason) {
+        return meterRegistry.counter("storage.bulkhead.rejected", "reason", reason).count();
+    }
+
+    private void waitFor(String gauge, double value) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (gauge(gauge) != value && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(value, gauge(gauge));
+    }
+
+    private static String fail() throws IOException {
+        throw new IOException("Storage down");
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IOException("Interrupted", e);
+        }
+    }
+}